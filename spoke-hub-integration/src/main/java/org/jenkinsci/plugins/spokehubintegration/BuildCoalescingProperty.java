@@ -0,0 +1,246 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.Actionable;
+import hudson.model.BooleanParameterValue;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.PasswordParameterValue;
+import hudson.model.Queue;
+import hudson.model.RunParameterValue;
+import hudson.model.StringParameterValue;
+import hudson.model.TextParameterValue;
+import hudson.util.FormValidation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jenkins.model.Jenkins;
+
+import net.sf.json.JSONObject;
+
+import org.jenkinsci.plugins.spokehubintegration.command.SlackCause;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * This class adds to the job configuration page the option to merge the identical 
+ * builds requested from Slack within a time window, extending the {@link JobProperty} 
+ * class.
+ * <p>
+ * A build request is identical to a build requested from Slack that is waiting in the
+ * queue, or that started within the window, if it has the same parameter values. The 
+ * user who sends it joins that build instead of queueing a new one. Only the string, 
+ * text, boolean, password and run values are compared, so the builds with parameters 
+ * of other types are never merged.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+public class BuildCoalescingProperty extends JobProperty<AbstractProject<?, ?>> {
+	
+	/*
+	 * NOTE: the name of these variables must match the corresponding value @field 
+	 * present in config.jelly file
+	 */
+	
+	public static final int DEFAULT_WINDOW_SECONDS = 60;
+	private final int windowSeconds;
+	
+	/**
+	 * Stores the time window set by the user in the job configuration page.
+	 * 
+	 * @param windowSeconds seconds after the start of a build during which it can 
+	 * be joined
+	 */
+	@DataBoundConstructor
+	public BuildCoalescingProperty(int windowSeconds) {
+		this.windowSeconds = Math.max(0, windowSeconds);
+	}
+	
+	/**
+	 * Gets the time window set by the user in the job configuration page.
+	 * 
+	 * @return seconds after the start of a build during which it can be joined
+	 */
+	public int getWindowSeconds() {
+		return this.windowSeconds;
+	}
+	
+	/**
+	 * Finds a build of the project requested from Slack and waiting in the queue with 
+	 * the same parameter values.
+	 * 
+	 * @param values parameter values of the requested build
+	 * @return item of the queue, or null if there is none
+	 */
+	public Queue.Item getQueuedBuild(List<ParameterValue> values) {
+		for (Queue.Item item : Jenkins.getInstance().getQueue().getItems(this.owner)) {
+			if (isSlackRequest(item.getCauses()) && hasValues(item, values)) {
+				return item;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Finds a build of the project requested from Slack and started within the time 
+	 * window with the same parameter values.
+	 * 
+	 * @param values parameter values of the requested build
+	 * @return the build, or null if there is none
+	 */
+	public AbstractBuild<?, ?> getStartedBuild(List<ParameterValue> values) {
+		long start = System.currentTimeMillis() - this.windowSeconds * 1000L;
+		// the builds are visited from the newest one
+		for (AbstractBuild<?, ?> build = this.owner.getLastBuild(); 
+				build != null && build.getStartTimeInMillis() >= start; 
+				build = build.getPreviousBuild()) {
+			if (build.isBuilding() && build.getCause(SlackCause.class) != null 
+					&& hasValues(build, values)) {
+				return build;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Checks if an item of the queue has been requested from Slack. 
+	 * 
+	 * @param causes causes of the item
+	 * @return true if one of the causes is a {@link SlackCause}, otherwise false
+	 */
+	private static boolean isSlackRequest(List<Cause> causes) {
+		for (Cause cause : causes) {
+			if (cause instanceof SlackCause) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Checks if a build or an item of the queue has some parameter values, regardless 
+	 * of their order.
+	 * 
+	 * @param actionable build or item of the queue
+	 * @param values parameter values
+	 * @return true if it has the same values, otherwise false
+	 */
+	private static boolean hasValues(Actionable actionable, List<ParameterValue> values) {
+		ParametersAction action = actionable.getAction(ParametersAction.class);
+		List<ParameterValue> actual = (action != null) ? action.getParameters() 
+				: Collections.<ParameterValue>emptyList();
+		if (actual.size() != values.size()) {
+			return false;
+		}
+		
+		Map<String, ParameterValue> actualByName = new HashMap<>();
+		for (ParameterValue value : actual) {
+			actualByName.put(value.getName(), value);
+		}
+		for (ParameterValue value : values) {
+			if (!isSameValue(value, actualByName.get(value.getName()))) {
+				return false;
+			}
+		}
+		
+		return actualByName.size() == values.size();
+	}
+	
+	/**
+	 * Checks if two parameter values are equal. The equals method of the parameter 
+	 * values compares only the names of the password, file and run values, so the 
+	 * values of the known types are compared directly.
+	 * 
+	 * @param value parameter value
+	 * @param other parameter value with the same name, or null
+	 * @return true if the values have the same known type and are equal, otherwise false
+	 */
+	static boolean isSameValue(ParameterValue value, ParameterValue other) {
+		if (other == null || value.getClass() != other.getClass()) {
+			return false;
+		}
+		
+		Object comparable = getComparableValue(value);
+		return comparable != null && comparable.equals(getComparableValue(other));
+	}
+	
+	/**
+	 * Gets the value of a parameter value of a known type.
+	 * 
+	 * @param value parameter value
+	 * @return value to compare, or null if the type is unknown
+	 */
+	private static Object getComparableValue(ParameterValue value) {
+		// the subclasses of the known types may have other fields
+		Class<?> type = value.getClass();
+		if (type == StringParameterValue.class || type == TextParameterValue.class) {
+			return ((StringParameterValue) value).value;
+		}
+		if (type == BooleanParameterValue.class) {
+			return Boolean.valueOf(((BooleanParameterValue) value).value);
+		}
+		if (type == PasswordParameterValue.class) {
+			return ((PasswordParameterValue) value).getValue().getPlainText();
+		}
+		if (type == RunParameterValue.class) {
+			return ((RunParameterValue) value).getRunId();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Descriptor of the {@link BuildCoalescingProperty}.
+	 */
+	@Extension
+	public static final class DescriptorImpl extends JobPropertyDescriptor {
+		
+		@Override
+		public String getDisplayName() {
+			return Messages.coalescingDisplayName();
+		}
+		
+		@Override
+		@SuppressWarnings("rawtypes")
+		public boolean isApplicable(Class<? extends Job> jobType) {
+			return AbstractProject.class.isAssignableFrom(jobType);
+		}
+		
+		@Override
+		public JobProperty<?> newInstance(StaplerRequest req, JSONObject formData) throws FormException {
+			// the property exists only if the optional block is checked
+			JSONObject block = formData.optJSONObject("coalescing");
+			if (block == null || block.isNullObject()) {
+				return null;
+			}
+			
+			return new BuildCoalescingProperty(block.optInt("windowSeconds", DEFAULT_WINDOW_SECONDS));
+		}
+		
+		/**
+		 * Checks if the time window is a positive number.
+		 * 
+		 * @param value seconds of the time window
+		 * @return ok if the value is a positive number, otherwise error
+		 */
+		public FormValidation doCheckWindowSeconds(@QueryParameter String value) {
+			return FormValidation.validatePositiveInteger(value);
+		}
+		
+	}
+
+}
@@ -1,90 +1,193 @@
 package org.jenkinsci.plugins.spokehubintegration;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.List;
+import java.io.File;
+import java.lang.invoke.MethodHandle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.jenkinsci.plugins.spokehubintegration.command.Command;
-import org.jenkinsci.plugins.spokehubintegration.command.JenkinsReceiver;
+import jenkins.model.Jenkins;
+
 import org.jenkinsci.plugins.spokehubintegration.utility.XMLReader;
 
 /**
  * Singleton class that implements {@link Controller} interface.
- * 
+ * <p>
+ * The commands are dispatched through an immutable {@link CommandRegistry}. The
+ * registry is read from the file {@value #COMMANDS_FILE} in the Jenkins home
+ * directory, or from the mappings bundled with the plugin if that file does not
+ * exist or contains no command when the plugin starts, and it can be reloaded at 
+ * runtime: a new registry is published atomically, so the commands in progress keep 
+ * using the previous one.
+ *
  * @author Tommaso Montingelli
  *
  */
 public class CommandController implements Controller {
 
+	public static final String COMMANDS_FILE = "spoke-hub-integration-commands.xml";
 	private static final Logger LOGGER = Logger.getLogger(CommandController.class.getName());
-	private static final int CLASS = 0;
-	private static final int METHOD = 1;
-	private static final int PARAMETER = 2;
-	// this variable follow the slash command syntax
-	private static final int COMMAND_INDEX = 0;
-	private static CommandController controller;
-	private XMLReader reader;
-	
+	private static final String BUNDLED_COMMANDS = "commands.xml";
+	private volatile CommandRegistry registry;
+	// modification time of the file last read, even if it was rejected
+	private volatile long lastModified;
+
+	/**
+	 * Holder of the singleton, initialized by the JVM when it is first used.
+	 */
+	private static class Holder {
+		private static final CommandController CONTROLLER = new CommandController();
+	}
+
 	/**
-	 * Initializes a newly created {@link XMLReader} object.
+	 * Loads the command registry.
 	 */
 	private CommandController() {
-		this.reader = new XMLReader(this.getClass().getResourceAsStream("commands.xml"));
+		reload();
 	}
-	
+
 	/**
 	 * Gets the {@link CommandController} singleton.
-	 * 
+	 *
 	 * @return the instance
 	 */
 	public static CommandController getInstance() {
-		if (controller == null) {
-			controller = new CommandController();
+		return Holder.CONTROLLER;
+	}
+
+	/**
+	 * Gets the file in the Jenkins home directory that overrides the bundled command
+	 * mappings.
+	 *
+	 * @return file of the command mappings, or null if Jenkins is not running
+	 */
+	private static File getCommandsFile() {
+		Jenkins jenkins = Jenkins.getInstance();
+		if (jenkins == null) {
+			return null;
+		}
+
+		return new File(jenkins.getRootDir(), COMMANDS_FILE);
+	}
+
+	/**
+	 * Reads the command mappings and publishes them as the new registry. If the file
+	 * in the Jenkins home directory contains no command, the current registry is kept,
+	 * or the bundled mappings are used if there is no current registry. A rejected file
+	 * is read again only when it is modified.
+	 */
+	public synchronized void reload() {
+		CommandRegistry registry = null;
+		long lastModified = 0;
+		File file = getCommandsFile();
+		if (file != null && file.isFile()) {
+			lastModified = file.lastModified();
+			registry = new CommandRegistry(new XMLReader(file.getPath()), file.getPath(), lastModified);
+			// check if the file contains commands
+			if (registry.size() == 0) {
+				this.lastModified = lastModified;
+				if (this.registry != null) {
+					LOGGER.log(Level.SEVERE, Messages.invalidCommandsFile(file.getPath()));
+					return;
+				}
+				
+				LOGGER.log(Level.SEVERE, Messages.commandsFileIgnored(file.getPath()));
+				registry = null;
+			}
+		}
+		if (registry == null) {
+			registry = new CommandRegistry(new XMLReader(
+					CommandController.class.getResourceAsStream(BUNDLED_COMMANDS)), BUNDLED_COMMANDS, 0);
+		}
+
+		this.registry = registry;
+		this.lastModified = lastModified;
+		CommandPlanCache.getInstance().invalidateAll();
+		LOGGER.log(Level.INFO, Messages.commandsLoaded(registry.size(), registry.getSource()));
+	}
+
+	/**
+	 * Reloads the command registry if the file in the Jenkins home directory has been
+	 * created, modified or deleted since the last reload.
+	 */
+	public void reloadIfModified() {
+		File file = getCommandsFile();
+		long lastModified = (file != null && file.isFile()) ? file.lastModified() : 0;
+		if (lastModified != this.lastModified) {
+			reload();
+		}
+	}
+
+	/**
+	 * Gets the current command registry.
+	 *
+	 * @return command registry
+	 */
+	public CommandRegistry getRegistry() {
+		return this.registry;
+	}
+
+	/**
+	 * Gets the plan of the text sent by Slack, from the cache of the most recently used 
+	 * texts if possible, and stores it in the data.
+	 * 
+	 * @param data data sent by Slack
+	 * @return plan of the text
+	 * @throws NullPointerException if the text is null
+	 */
+	public CommandPlan getPlan(SlackData data) {
+		CommandPlan plan = data.getCommandPlan();
+		if (plan == null) {
+			plan = CommandPlanCache.getInstance().getPlan(data.getText(), this.registry);
+			data.setCommandPlan(plan);
 		}
 		
-		return controller;
+		return plan;
 	}
-	
+
+	/**
+	 * Checks if a command is marked as expensive in the command mappings.
+	 *
+	 * @param command command requested
+	 * @return true if the command exists and is expensive, otherwise false
+	 */
+	public boolean isExpensive(String command) {
+		return this.registry.isExpensive(command);
+	}
+
 	@Override
 	public Object handleData(SlackData data) {
 		String message;
-		String text = data.getText();
-		text = text.replaceAll("\\s+", " ");
-		data.setText(text);
-		String command = text.split(" ")[COMMAND_INDEX];
+		// the same plan, and so the same registry, is used for the whole command, 
+		// even if a reload happens
+		CommandPlan plan = getPlan(data);
+		String command = plan.getCommand();
 		// check if the user typed the command
 		if (command.isEmpty()) {
 			message = Messages.commandNotTyped();
 			LOGGER.log(Level.SEVERE, message);
 			return new SlackMessage(message, Messages.danger());
 		}
-		
-		List<String> pair = this.reader.getParameters(command);
+
 		// check if the command exists
-		if (pair.isEmpty()) {
+		if (!plan.getRegistry().contains(command)) {
 			message = Messages.commandNotFound(command);
 			LOGGER.log(Level.SEVERE, message);
 			return new SlackMessage(message, Messages.danger());
 		}
-		
-		String classe = pair.get(CLASS);
-		String metodo = pair.get(METHOD);
-		String parametro = pair.get(PARAMETER);
-		Class<?> constructorClass;
+
+		MethodHandle handler = plan.getHandler();
+		// check if the command mapping was resolved
+		if (handler == null) {
+			message = Messages.notImplementedCommand(command);
+			LOGGER.log(Level.SEVERE, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+
 		try {
-			constructorClass = Class.forName(classe);
-			Constructor<?> constructor = constructorClass.getConstructor(Command.class);
-			Class<?> parameterClass = Class.forName(parametro);
-			Constructor<?> parameterConstructor = parameterClass.getConstructor(JenkinsReceiver.class);
-			Object o = constructor.newInstance(parameterConstructor.newInstance(new JenkinsReceiver()));
-			Method m = constructorClass.getDeclaredMethod(metodo, data.getClass());
-			m.setAccessible(true);
-			return m.invoke(o, data);
-		} catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException 
-				| IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+			return (Object) handler.invokeExact(data);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
 			message = Messages.notImplementedCommand(command);
 			LOGGER.log(Level.SEVERE, message, e);
 			return new SlackMessage(message, Messages.danger());
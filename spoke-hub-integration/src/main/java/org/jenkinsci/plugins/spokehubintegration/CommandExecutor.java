@@ -0,0 +1,311 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import org.acegisecurity.context.SecurityContextHolder;
+
+/**
+ * Singleton class that runs the commands received from Slack on a bounded pool of
+ * threads or, if requested and supported by the JVM, on virtual threads.
+ * <p>
+ * The number of commands running or waiting is limited: a command must be admitted
+ * with {@link #tryAcquire()} before it is executed. A command can also split its work
+ * into tasks run in parallel with {@link #runAll(List)}.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class CommandExecutor {
+
+	private static final Logger LOGGER = Logger.getLogger(CommandExecutor.class.getName());
+	private static final long KEEP_ALIVE_SECONDS = 60;
+	// available since JDK 21
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+	private static final CommandExecutor EXECUTOR = new CommandExecutor();
+	private final AtomicInteger pendingCommands = new AtomicInteger();
+	private final AtomicLong rejectedCommands = new AtomicLong();
+	private volatile int maximumPendingCommands;
+	private volatile ExecutorService executor;
+	private int corePoolSize;
+	private int maximumPoolSize;
+	private int queueCapacity;
+	private boolean virtualThreads;
+
+	/**
+	 * Creates the pool using the default settings.
+	 */
+	private CommandExecutor() {
+		this.corePoolSize = SlashCommandGlobalConfiguration.DEFAULT_CORE_POOL_SIZE;
+		this.maximumPoolSize = SlashCommandGlobalConfiguration.DEFAULT_MAXIMUM_POOL_SIZE;
+		this.queueCapacity = SlashCommandGlobalConfiguration.DEFAULT_QUEUE_CAPACITY;
+		this.maximumPendingCommands = SlashCommandGlobalConfiguration.DEFAULT_MAXIMUM_PENDING_COMMANDS;
+		this.executor = createPool(this.corePoolSize, this.maximumPoolSize, this.queueCapacity);
+	}
+
+	/**
+	 * Gets the {@link CommandExecutor} singleton.
+	 *
+	 * @return the instance
+	 */
+	public static CommandExecutor getInstance() {
+		return EXECUTOR;
+	}
+
+	/**
+	 * Looks for the factory method of the virtual thread executor.
+	 *
+	 * @return factory method, or null if the JVM does not support virtual threads
+	 */
+	private static Method findVirtualThreadExecutor() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if the JVM running Jenkins supports virtual threads.
+	 *
+	 * @return true if virtual threads are supported, otherwise false
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates a pool of daemon threads.
+	 *
+	 * @param corePoolSize number of threads kept alive when idle
+	 * @param maximumPoolSize maximum number of threads
+	 * @param queueCapacity maximum number of commands waiting for a thread
+	 * @return pool of threads
+	 */
+	private static ExecutorService createPool(int corePoolSize, int maximumPoolSize,
+			int queueCapacity) {
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(corePoolSize, maximumPoolSize,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity),
+				new NamingThreadFactory(new DaemonThreadFactory(), CommandExecutor.class.getName()));
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each command.
+	 *
+	 * @return executor, or null if it cannot be created
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+			LOGGER.log(Level.WARNING, Messages.virtualThreadsNotSupported(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Applies the executor settings of the plugin. The commands already accepted by
+	 * the previous executor are completed.
+	 *
+	 * @param slashCommandConfiguration slash command setup
+	 */
+	public synchronized void configure(SlashCommandGlobalConfiguration slashCommandConfiguration) {
+		this.maximumPendingCommands = Math.max(1, slashCommandConfiguration.getMaximumPendingCommands());
+		// ThreadPoolExecutor requires 0 <= core <= maximum and a positive capacity
+		int corePoolSize = Math.max(0, slashCommandConfiguration.getCorePoolSize());
+		int maximumPoolSize = Math.max(Math.max(1, corePoolSize),
+				slashCommandConfiguration.getMaximumPoolSize());
+		int queueCapacity = Math.max(1, slashCommandConfiguration.getQueueCapacity());
+		boolean virtualThreads = slashCommandConfiguration.getVirtualThreads();
+		// check if the settings are changed
+		if (this.corePoolSize == corePoolSize && this.maximumPoolSize == maximumPoolSize
+				&& this.queueCapacity == queueCapacity && this.virtualThreads == virtualThreads) {
+			return;
+		}
+
+		ExecutorService executor = null;
+		if (virtualThreads) {
+			if (isVirtualThreadSupported()) {
+				executor = createVirtualThreadExecutor();
+			} else {
+				LOGGER.log(Level.WARNING, Messages.virtualThreadsNotSupported());
+			}
+		}
+		if (executor == null) {
+			executor = createPool(corePoolSize, maximumPoolSize, queueCapacity);
+			LOGGER.log(Level.INFO, Messages.executorConfigured(corePoolSize, maximumPoolSize,
+					queueCapacity));
+		} else {
+			LOGGER.log(Level.INFO, Messages.virtualThreadsConfigured());
+		}
+
+		ExecutorService current = this.executor;
+		this.executor = executor;
+		this.corePoolSize = corePoolSize;
+		this.maximumPoolSize = maximumPoolSize;
+		this.queueCapacity = queueCapacity;
+		this.virtualThreads = virtualThreads;
+		current.shutdown();
+	}
+
+	/**
+	 * Admits a new command if the number of commands running or waiting is below
+	 * the limit, otherwise counts the command as rejected.
+	 *
+	 * @return true if the command is admitted, otherwise false
+	 */
+	public boolean tryAcquire() {
+		if (this.pendingCommands.incrementAndGet() > this.maximumPendingCommands) {
+			this.pendingCommands.decrementAndGet();
+			this.rejectedCommands.incrementAndGet();
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Releases the admission of a command that will not be executed.
+	 */
+	public void release() {
+		this.pendingCommands.decrementAndGet();
+	}
+
+	/**
+	 * Runs an admitted command on a thread of the executor and releases its
+	 * admission when the command ends.
+	 *
+	 * @param command command to run
+	 * @throws RejectedExecutionException if all the threads are busy and the queue
+	 * is full
+	 */
+	public void execute(final Runnable command) {
+		try {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						command.run();
+					} finally {
+						release();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			release();
+			this.rejectedCommands.incrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs a list of tasks in parallel and waits for all of them to end. The calling
+	 * thread runs tasks too, taking them from a shared index together with the 
+	 * threads of the executor, so the tasks are completed even if all the threads are
+	 * busy or the executor rejects them.
+	 *
+	 * @param tasks tasks to run
+	 */
+	public void runAll(final List<? extends Runnable> tasks) {
+		final AtomicInteger next = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(tasks.size());
+		final Runnable worker = new Runnable() {
+			@Override
+			public void run() {
+				int index;
+				while ((index = next.getAndIncrement()) < tasks.size()) {
+					try {
+						tasks.get(index).run();
+					} catch (RuntimeException e) {
+						LOGGER.log(Level.WARNING, Messages.taskFailed(), e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}
+		};
+		
+		int helpers = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()) - 1;
+		for (int i = 0; i < helpers; i++) {
+			try {
+				this.executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							worker.run();
+						} finally {
+							// the tasks may impersonate the system user
+							SecurityContextHolder.clearContext();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// the calling thread runs the remaining tasks
+				break;
+			}
+		}
+		worker.run();
+		
+		// a helper still waiting for a thread finds no task left, so only the tasks 
+		// being run by the other threads are awaited
+		boolean interrupted = false;
+		while (true) {
+			try {
+				done.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the number of commands running or waiting for a thread.
+	 *
+	 * @return number of pending commands
+	 */
+	public int getPendingCommands() {
+		return this.pendingCommands.get();
+	}
+
+	/**
+	 * Gets the number of commands rejected since Jenkins started because too many
+	 * commands were pending.
+	 *
+	 * @return number of rejected commands
+	 */
+	public long getRejectedCommands() {
+		return this.rejectedCommands.get();
+	}
+
+	/**
+	 * Stops accepting commands when Jenkins shuts down.
+	 */
+	@Terminator
+	public static void shutdown() {
+		EXECUTOR.executor.shutdown();
+	}
+
+}
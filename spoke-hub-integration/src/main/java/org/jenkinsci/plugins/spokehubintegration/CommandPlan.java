@@ -0,0 +1,149 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandLine;
+
+/**
+ * Parsed form of a slash command text, shared by all the requests that contain the
+ * same text.
+ * <p>
+ * A plan holds the tokens of the text and the command resolved against a
+ * {@link CommandRegistry}. The build parameters are added the first time they are
+ * validated against the definitions of the job, so that a repeated command skips
+ * that validation too.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public final class CommandPlan {
+
+	// this variable follow the slash command syntax
+	private static final int JOB_PARAMETER_INDEX = 1;
+	private final CommandRegistry registry;
+	private final CommandLine commandLine;
+	private final String command;
+	private final MethodHandle handler;
+	private volatile ValidatedParameters parameters;
+
+	/**
+	 * Build parameters validated against the definitions of a job.
+	 */
+	private static final class ValidatedParameters {
+
+		private final String job;
+		// from the name of the parameter to its value
+		private final Map<String, String> parameters;
+
+		/**
+		 * Stores the validated parameters.
+		 *
+		 * @param job full name of the job
+		 * @param parameters immutable map from the name of the parameter to its value
+		 */
+		private ValidatedParameters(String job, Map<String, String> parameters) {
+			this.job = job;
+			this.parameters = parameters;
+		}
+
+	}
+
+	/**
+	 * Resolves the command of a text.
+	 *
+	 * @param registry command registry used to resolve the command
+	 * @param commandLine tokens of the text
+	 * @param command command typed by the user
+	 */
+	public CommandPlan(CommandRegistry registry, CommandLine commandLine, String command) {
+		this.registry = registry;
+		this.commandLine = commandLine;
+		this.command = command;
+		this.handler = registry.getHandler(command);
+	}
+
+	/**
+	 * Gets the command registry used to resolve the command.
+	 *
+	 * @return command registry
+	 */
+	public CommandRegistry getRegistry() {
+		return this.registry;
+	}
+
+	/**
+	 * Gets the tokens of the text.
+	 *
+	 * @return tokens of the text
+	 */
+	public CommandLine getCommandLine() {
+		return this.commandLine;
+	}
+
+	/**
+	 * Gets the command typed by the user.
+	 *
+	 * @return command typed, or an empty string if the text contains no command
+	 */
+	public String getCommand() {
+		return this.command;
+	}
+
+	/**
+	 * Gets the handle that executes the command.
+	 *
+	 * @return handle of the command, or null if the command does not exist or its
+	 * mapping is wrong
+	 */
+	public MethodHandle getHandler() {
+		return this.handler;
+	}
+
+	/**
+	 * Gets the name of the job the command refers to.
+	 *
+	 * @return name of the job, or null if the text contains no job
+	 */
+	public String getJob() {
+		if (this.commandLine.size() <= JOB_PARAMETER_INDEX) {
+			return null;
+		}
+
+		return this.commandLine.getToken(JOB_PARAMETER_INDEX);
+	}
+
+	/**
+	 * Gets the full name of the job the build parameters have been validated against.
+	 * It may differ from the name typed by the user, that can be a short name.
+	 *
+	 * @return full name of the job, or null if the parameters have not been validated
+	 */
+	public String getValidatedJob() {
+		ValidatedParameters parameters = this.parameters;
+		return (parameters != null) ? parameters.job : null;
+	}
+
+	/**
+	 * Gets the build parameters validated against the definitions of a job.
+	 *
+	 * @param job full name of the job
+	 * @return immutable map from the name of the parameter to its value, or null if
+	 * the parameters have not been validated against the job
+	 */
+	public Map<String, String> getParameters(String job) {
+		ValidatedParameters parameters = this.parameters;
+		return (parameters != null && parameters.job.equals(job)) ? parameters.parameters : null;
+	}
+
+	/**
+	 * Stores the build parameters validated against the definitions of a job.
+	 *
+	 * @param job full name of the job
+	 * @param parameters immutable map from the name of the parameter to its value
+	 */
+	public void setParameters(String job, Map<String, String> parameters) {
+		this.parameters = new ValidatedParameters(job, parameters);
+	}
+
+}
@@ -0,0 +1,137 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.util.Iterator;
+
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandLine;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Singleton class that stores the {@link CommandPlan}s of the most recently used 
+ * slash command texts.
+ * <p>
+ * The texts are normalized by removing the leading, trailing and repeated whitespace 
+ * outside quotes, so the same command typed with different spacing shares a plan. A 
+ * plan is discarded when the command registry is reloaded or when the job it refers 
+ * to is saved, because its parameter definitions may have changed.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+public class CommandPlanCache {
+	
+	// this variable follow the slash command syntax
+	private static final int COMMAND_INDEX = 0;
+	private static final long MAXIMUM_PLANS = 1000;
+	private static final CommandPlanCache CACHE = new CommandPlanCache();
+	private final Cache<String, CommandPlan> plans;
+	
+	/**
+	 * Creates an empty cache that evicts the least recently used plans.
+	 */
+	private CommandPlanCache() {
+		this.plans = CacheBuilder.newBuilder()
+				.maximumSize(MAXIMUM_PLANS)
+				.build();
+	}
+	
+	/**
+	 * Gets the {@link CommandPlanCache} singleton.
+	 * 
+	 * @return the instance
+	 */
+	public static CommandPlanCache getInstance() {
+		return CACHE;
+	}
+	
+	/**
+	 * Gets the plan of a text, parsing the text only if the plan is not in the cache 
+	 * or was resolved against a previous command registry.
+	 * 
+	 * @param text slash command text
+	 * @param registry current command registry
+	 * @return plan of the text
+	 * @throws NullPointerException if the text is null
+	 */
+	public CommandPlan getPlan(String text, CommandRegistry registry) {
+		String key = normalize(text);
+		CommandPlan plan = this.plans.getIfPresent(key);
+		if (plan != null && plan.getRegistry() == registry) {
+			return plan;
+		}
+		
+		CommandLine commandLine = new CommandLine(key);
+		String command = commandLine.size() > 0 ? commandLine.getToken(COMMAND_INDEX) : "";
+		plan = new CommandPlan(registry, commandLine, command);
+		// the texts of the commands that do not exist are not stored, so they 
+		// cannot evict the plans of the valid commands
+		if (registry.contains(command)) {
+			this.plans.put(key, plan);
+		}
+		
+		return plan;
+	}
+	
+	/**
+	 * Discards the plans of the commands that refer to a job.
+	 * 
+	 * @param job full name of the job
+	 */
+	public void invalidateJob(String job) {
+		Iterator<CommandPlan> iterator = this.plans.asMap().values().iterator();
+		while (iterator.hasNext()) {
+			CommandPlan plan = iterator.next();
+			if (job.equals(plan.getValidatedJob()) || job.equals(plan.getJob())) {
+				iterator.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Discards all the plans.
+	 */
+	public void invalidateAll() {
+		this.plans.invalidateAll();
+	}
+	
+	/**
+	 * Removes the leading, trailing and repeated whitespace outside quotes.
+	 * 
+	 * @param text slash command text
+	 * @return normalized text
+	 */
+	private static String normalize(String text) {
+		StringBuilder builder = null;
+		char quote = 0;
+		boolean space = false;
+		int n = text.length();
+		for (int i = 0; i < n; i++) {
+			char c = text.charAt(i);
+			if (quote == 0 && Character.isWhitespace(c)) {
+				space = true;
+				if (builder == null) {
+					builder = new StringBuilder(n);
+					builder.append(text, 0, i);
+				}
+				continue;
+			}
+			
+			if (quote == 0 && (c == '"' || c == '\'')) {
+				quote = c;
+			} else if (c == quote) {
+				quote = 0;
+			}
+			if (builder != null) {
+				if (space && builder.length() > 0) {
+					builder.append(' ');
+				}
+				builder.append(c);
+			}
+			space = false;
+		}
+		
+		return builder == null ? text : builder.toString();
+	}
+
+}
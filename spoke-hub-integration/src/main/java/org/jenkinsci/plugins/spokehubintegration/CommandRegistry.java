@@ -0,0 +1,155 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.plugins.spokehubintegration.command.Command;
+import org.jenkinsci.plugins.spokehubintegration.command.JenkinsReceiver;
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandSpec;
+import org.jenkinsci.plugins.spokehubintegration.utility.XMLReader;
+
+/**
+ * Immutable snapshot of the command mappings.
+ * <p>
+ * The mappings are resolved, when the snapshot is created, into a table of
+ * {@link MethodHandle}s bound to their invoker, so that a command is dispatched
+ * with a single lookup and a direct call.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public final class CommandRegistry {
+
+	private static final Logger LOGGER = Logger.getLogger(CommandRegistry.class.getName());
+	// type of the handles stored in the dispatch table
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(Object.class, SlackData.class);
+	// a command mapped to a null handle exists but cannot be executed
+	private final Map<String, MethodHandle> handlers;
+	private final Set<String> expensiveCommands;
+	private final String source;
+	private final long lastModified;
+
+	/**
+	 * Resolves the command mappings read by an {@link XMLReader} object.
+	 *
+	 * @param reader reader of the command mappings
+	 * @param source description of the file that contains the mappings
+	 * @param lastModified modification time of the file, or 0 if the file is bundled
+	 * with the plugin
+	 */
+	public CommandRegistry(XMLReader reader, String source, long lastModified) {
+		// the receiver has no state, so all the commands share it
+		JenkinsReceiver receiver = new JenkinsReceiver();
+		Map<String, MethodHandle> handlers = new HashMap<>();
+		Set<String> expensiveCommands = new HashSet<>();
+		for (CommandSpec spec : reader.getCommands().values()) {
+			handlers.put(spec.getCommand(), resolve(spec, receiver));
+			if (spec.isExpensive()) {
+				expensiveCommands.add(spec.getCommand());
+			}
+		}
+		this.handlers = Collections.unmodifiableMap(handlers);
+		this.expensiveCommands = Collections.unmodifiableSet(expensiveCommands);
+		this.source = source;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Instantiates the invoker of a command and binds the invoker method to it.
+	 *
+	 * @param spec mapping of the command to resolve
+	 * @param receiver object that performs the execution of the commands
+	 * @return handle that executes the command, or null if the command mapping is
+	 * wrong
+	 */
+	private static MethodHandle resolve(CommandSpec spec, JenkinsReceiver receiver) {
+		String classe = spec.getClassName();
+		String metodo = spec.getMethodName();
+		String parametro = spec.getParameterClassName();
+		try {
+			Class<?> constructorClass = Class.forName(classe);
+			Constructor<?> constructor = constructorClass.getConstructor(Command.class);
+			Class<?> parameterClass = Class.forName(parametro);
+			Constructor<?> parameterConstructor = parameterClass.getConstructor(JenkinsReceiver.class);
+			Object o = constructor.newInstance(parameterConstructor.newInstance(receiver));
+			Method m = constructorClass.getDeclaredMethod(metodo, SlackData.class);
+			m.setAccessible(true);
+			return MethodHandles.lookup().unreflect(m).bindTo(o).asType(HANDLER_TYPE);
+		} catch (ClassNotFoundException | NoSuchMethodException | SecurityException | InstantiationException
+				| IllegalAccessException | IllegalArgumentException | InvocationTargetException
+				| ClassCastException | NullPointerException e) {
+			LOGGER.log(Level.SEVERE, Messages.notImplementedCommand(spec.getCommand()), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if a command exists.
+	 *
+	 * @param command command requested
+	 * @return true if the command exists, otherwise false
+	 */
+	public boolean contains(String command) {
+		return this.handlers.containsKey(command);
+	}
+
+	/**
+	 * Gets the handle that executes a command.
+	 *
+	 * @param command command requested
+	 * @return handle of the command, or null if the command does not exist or its
+	 * mapping is wrong
+	 */
+	public MethodHandle getHandler(String command) {
+		return this.handlers.get(command);
+	}
+
+	/**
+	 * Checks if a command is marked as expensive in the command mappings.
+	 *
+	 * @param command command requested
+	 * @return true if the command exists and is expensive, otherwise false
+	 */
+	public boolean isExpensive(String command) {
+		return this.expensiveCommands.contains(command);
+	}
+
+	/**
+	 * Gets the number of commands.
+	 *
+	 * @return number of commands
+	 */
+	public int size() {
+		return this.handlers.size();
+	}
+
+	/**
+	 * Gets the description of the file that contains the mappings.
+	 *
+	 * @return description of the file
+	 */
+	public String getSource() {
+		return this.source;
+	}
+
+	/**
+	 * Gets the modification time of the file that contains the mappings.
+	 *
+	 * @return modification time, or 0 if the file is bundled with the plugin
+	 */
+	public long getLastModified() {
+		return this.lastModified;
+	}
+
+}
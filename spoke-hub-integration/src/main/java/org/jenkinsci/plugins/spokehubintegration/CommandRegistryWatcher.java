@@ -0,0 +1,26 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+
+/**
+ * Class that extends {@link PeriodicWork} class and reloads the command registry
+ * when the file of the command mappings in the Jenkins home directory changes.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class CommandRegistryWatcher extends PeriodicWork {
+
+	@Override
+	public long getRecurrencePeriod() {
+		return MIN;
+	}
+
+	@Override
+	protected void doRun() throws Exception {
+		CommandController.getInstance().reloadIfModified();
+	}
+
+}
@@ -3,40 +3,44 @@ package org.jenkinsci.plugins.spokehubintegration;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.acegisecurity.context.SecurityContextHolder;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
 /**
- * Class that starts a new {@link Thread} that analyzes the request sent by Slack.
+ * Class that analyzes the request sent by Slack on a thread of the 
+ * {@link CommandExecutor}.
  * 
  * @author Tommaso Montingelli
  *
  */
-public class CommandThread extends Thread {
+public class CommandThread implements Runnable {
 	
 	private static final Logger LOGGER = Logger.getLogger(CommandThread.class.getName());
-	private SlashCommandGlobalConfiguration slashCommandConfiguration;
 	private SlackData data;
 	
 	/**
-	 * Initializes a {@link SlashCommandGlobalConfiguration} object and stores the data 
-	 * sent by Slack.
+	 * Stores the data sent by Slack.
 	 * 
-	 * @param slashCommandConfiguration slash command setup
 	 * @param request request sent by Slack
 	 */
-	public CommandThread(SlashCommandGlobalConfiguration slashCommandConfiguration, StaplerRequest request) {
-		this.slashCommandConfiguration = slashCommandConfiguration;
+	public CommandThread(StaplerRequest request) {
 		this.data = new SlackData();
 		request.bindParameters(this.data);
 	}
 	
 	@Override
 	public void run() {
-		SlackMessage message = processRequest();
-		if (message.getText() != null && message.getColor() != null) {
-			JSONResponse response = new JSONResponse(message, StaplerResponse.SC_OK);
-			response.sendResponse(this.data.getResponse_url());
+		try {
+			SlackMessage message = processRequest();
+			if (message.getText() != null && message.getColor() != null) {
+				JSONResponse response = new JSONResponse(message, StaplerResponse.SC_OK);
+				response.sendResponse(this.data.getResponse_url());
+			}
+		} finally {
+			// the commands impersonate the system user, so the pooled thread 
+			// must not keep the authentication for the next command
+			SecurityContextHolder.clearContext();
 		}
 	}
 
@@ -47,30 +51,33 @@ public class CommandThread extends Thread {
 	 */
 	private SlackMessage processRequest() {
 		String message;
-		// checks if jenkins was restarted
-		if (this.slashCommandConfiguration == null) {
-			message = Messages.restartJenkins();
-			LOGGER.log(Level.SEVERE, message);
-            return new SlackMessage(message, Messages.danger());
+		// the configuration and the token have been checked by SlackWebhookEndpoint
+		CommandController controller = CommandController.getInstance();
+		String command = getCommand();
+		boolean expensive = controller.isExpensive(command);
+		// check if the user or the channel sent too many commands
+		if (!RateLimiter.getInstance().tryAcquire(expensive, this.data)) {
+			message = Messages.tooManyCommands(command);
+			LOGGER.log(Level.WARNING, message);
+			SlackMessage response = new SlackMessage(message, Messages.danger());
+			response.setResponse_type(Messages.ephemeral());
+			return response;
 		}
 		
-		String slackSlashCommandToken = this.slashCommandConfiguration.getSlackSlashCommandToken();
-		// check if the token is set
-		if (slackSlashCommandToken == null || slackSlashCommandToken.isEmpty()) {
-			message = Messages.tokenNotSet();
-			LOGGER.log(Level.SEVERE, message);
-			return new SlackMessage(message, Messages.danger());
-        }
-		
-		// check if the token is correct
-		if (!slackSlashCommandToken.equals(this.data.getToken())) {
-			message = Messages.invalidToken();
-			LOGGER.log(Level.SEVERE, message);
-			return new SlackMessage(message, Messages.danger());
+		return (SlackMessage) controller.handleData(this.data);
+	}
+	
+	/**
+	 * Gets the command typed by the user.
+	 * 
+	 * @return command typed, or an empty string if the text is missing
+	 */
+	private String getCommand() {
+		if (this.data.getText() == null) {
+			return "";
 		}
 		
-		Controller controller = CommandController.getInstance();
-		return (SlackMessage) controller.handleData(this.data);
+		return CommandController.getInstance().getPlan(this.data).getCommand();
 	}
 
 }
@@ -0,0 +1,124 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.StaplerRequest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Singleton class that remembers the requests recently received from Slack, so that
+ * the deliveries retried by Slack are acknowledged without executing the command
+ * again.
+ * <p>
+ * A request is identified by a hash of the team, the user, the command, the text and
+ * the trigger id. Slack sends a new trigger id for each command typed by a user and
+ * the same one when it retries a delivery, so requests with a trigger id are always
+ * deduplicated. Requests without a trigger id are deduplicated only when Slack marks
+ * them as retries, because a user may legitimately send the same command twice.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class IdempotencyCache {
+
+	private static final String RETRY_NUM_HEADER = "X-Slack-Retry-Num";
+	private static final long TIME_TO_LIVE_MINUTES = 5;
+	private static final long MAXIMUM_REQUESTS = 10000;
+	private static final char SEPARATOR = '\n';
+	private static final IdempotencyCache CACHE = new IdempotencyCache();
+	private final Cache<String, HttpResponse> responses;
+
+	/**
+	 * Creates an empty cache whose entries expire after a few minutes.
+	 */
+	private IdempotencyCache() {
+		this.responses = CacheBuilder.newBuilder()
+				.maximumSize(MAXIMUM_REQUESTS)
+				.expireAfterWrite(TIME_TO_LIVE_MINUTES, TimeUnit.MINUTES)
+				.build();
+	}
+
+	/**
+	 * Gets the {@link IdempotencyCache} singleton.
+	 *
+	 * @return the instance
+	 */
+	public static IdempotencyCache getInstance() {
+		return CACHE;
+	}
+
+	/**
+	 * Computes the key that identifies a request.
+	 *
+	 * @param request request sent by Slack
+	 * @return key of the request
+	 */
+	public String getKey(StaplerRequest request) {
+		StringBuilder fields = new StringBuilder();
+		fields.append(request.getParameter("team_id")).append(SEPARATOR)
+				.append(request.getParameter("user_id")).append(SEPARATOR)
+				.append(request.getParameter("command")).append(SEPARATOR)
+				.append(request.getParameter("text")).append(SEPARATOR)
+				.append(request.getParameter("trigger_id"));
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(fields.toString().getBytes(StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				key.append(Character.forDigit((b >> 4) & 0xF, 16))
+						.append(Character.forDigit(b & 0xF, 16));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Records a request and its acknowledgement, unless the request is a duplicate of
+	 * one already recorded.
+	 *
+	 * @param key key of the request
+	 * @param request request sent by Slack
+	 * @param response acknowledgement of the request
+	 * @return acknowledgement previously sent if the request is a duplicate,
+	 * otherwise null
+	 */
+	public HttpResponse putIfAbsent(String key, StaplerRequest request, HttpResponse response) {
+		boolean deduplicate = request.getParameter("trigger_id") != null
+				|| request.getHeader(RETRY_NUM_HEADER) != null;
+		if (!deduplicate) {
+			this.responses.put(key, response);
+			return null;
+		}
+
+		return this.responses.asMap().putIfAbsent(key, response);
+	}
+
+	/**
+	 * Forgets a request, so that a new delivery of the same request is executed.
+	 *
+	 * @param key key of the request
+	 */
+	public void invalidate(String key) {
+		this.responses.invalidate(key);
+	}
+
+	/**
+	 * Gets the number of the retries made by Slack for a request.
+	 *
+	 * @param request request sent by Slack
+	 * @return number of the retries, or null if the request is not a retry
+	 */
+	public String getRetryNum(StaplerRequest request) {
+		return request.getHeader(RETRY_NUM_HEADER);
+	}
+
+}
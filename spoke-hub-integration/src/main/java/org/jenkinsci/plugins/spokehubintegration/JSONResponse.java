@@ -47,14 +47,26 @@ public class JSONResponse implements HttpResponse {
      */
     private JSONObject createResponse(Object content) {
     	SlackMessage message = (SlackMessage) content;
+    	return createResponse(message.getText(), message.getColor(), message.getResponse_type());
+    }
+    
+    /**
+     * Creates the response to be sent to Slack.
+     * 
+     * @param text message text
+     * @param color border color of the message
+     * @param response_type response type
+     * @return response to be sent
+     */
+    public static JSONObject createResponse(String text, String color, String response_type) {
     	JSONObject attachment = new JSONObject();
-    	attachment.put("text", message.getText());
-        attachment.put("color", message.getColor());
+    	attachment.put("text", text);
+        attachment.put("color", color);
         JSONArray attachments = new JSONArray();
         attachments.add(attachment);
         
         JSONObject response = new JSONObject();
-        response.put("response_type", message.getResponse_type());
+        response.put("response_type", response_type);
         response.put("attachments", attachments);
         
     	return response;
@@ -0,0 +1,368 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.model.AbstractProject;
+import hudson.model.Item;
+import hudson.security.ACL;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import jenkins.model.Jenkins;
+
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.jenkinsci.plugins.spokehubintegration.utility.BloomFilter;
+import org.jenkinsci.plugins.spokehubintegration.utility.NameTrie;
+
+/**
+ * Singleton class that finds the projects by their full name without walking the
+ * Jenkins item tree for every command.
+ * <p>
+ * The projects found are kept in a concurrent map, and the names of all the items
+ * are kept in a {@link BloomFilter}, so that a name that does not exist is rejected
+ * without any lookup. A name that does not match exactly is resolved through a
+ * {@link NameTrie} of the full and short names of the projects, ignoring the case and
+ * accepting a unique prefix. The trie also suggests the names similar to a name that
+ * cannot be resolved and finds the projects matching a pattern. All of them are kept
+ * coherent by {@link JobCacheListener} and are rebuilt when the items are loaded from
+ * disk. As the commands are executed by the system user, the projects are looked up
+ * regardless of the permissions of the current user.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class JobCache {
+
+	private static final int MINIMUM_EXPECTED_ITEMS = 1024;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+	private static final int MAXIMUM_DISTANCE = 2;
+	private static final int MAXIMUM_SUGGESTIONS = 3;
+	// Jenkins does not allow these characters in the item names
+	private static final String WILDCARDS = "*?";
+	private static final JobCache CACHE = new JobCache();
+	private volatile Index index;
+
+	/**
+	 * Projects and item names of a Jenkins instance.
+	 */
+	private static final class Index {
+
+		private final Jenkins jenkins;
+		private final ConcurrentMap<String, AbstractProject<?, ?>> projects = new ConcurrentHashMap<>();
+		private final BloomFilter names;
+		private final NameTrie projectNames = new NameTrie();
+
+		/**
+		 * Adds the names of all the items of a Jenkins instance.
+		 *
+		 * @param jenkins Jenkins instance
+		 * @param items all the items of the instance
+		 */
+		private Index(Jenkins jenkins, List<Item> items) {
+			this.jenkins = jenkins;
+			// leave room for the items created later
+			this.names = new BloomFilter(Math.max(MINIMUM_EXPECTED_ITEMS, items.size() * 2),
+					FALSE_POSITIVE_RATE);
+			for (Item item : items) {
+				this.names.put(item.getFullName());
+				if (item instanceof AbstractProject) {
+					this.projectNames.put(item.getFullName(), item.getFullName());
+					this.projectNames.put(item.getName(), item.getFullName());
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Creates an empty cache.
+	 */
+	private JobCache() {
+	}
+
+	/**
+	 * Gets the {@link JobCache} singleton.
+	 *
+	 * @return the instance
+	 */
+	public static JobCache getInstance() {
+		return CACHE;
+	}
+
+	/**
+	 * Gets the index of the running Jenkins instance, building it if it does not
+	 * exist yet or if Jenkins has been restarted.
+	 *
+	 * @return the index, or null if Jenkins is not running
+	 */
+	private Index getIndex() {
+		Jenkins jenkins = Jenkins.getInstance();
+		Index index = this.index;
+		if (index == null || index.jenkins != jenkins) {
+			index = buildIndex(false);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Builds the index of the running Jenkins instance from all its items.
+	 */
+	public void rebuild() {
+		buildIndex(true);
+	}
+
+	/**
+	 * Builds the index of the running Jenkins instance from all its items.
+	 *
+	 * @param force true to replace an index of the running instance, false to keep it
+	 * @return the index, or null if Jenkins is not running
+	 */
+	private synchronized Index buildIndex(boolean force) {
+		Jenkins jenkins = Jenkins.getInstance();
+		if (jenkins == null) {
+			this.index = null;
+			return null;
+		}
+
+		// another thread may have built the index in the meantime
+		if (!force && this.index != null && this.index.jenkins == jenkins) {
+			return this.index;
+		}
+
+		SecurityContext context = ACL.impersonate(ACL.SYSTEM);
+		try {
+			this.index = new Index(jenkins, jenkins.getAllItems(Item.class));
+		} finally {
+			SecurityContextHolder.setContext(context);
+		}
+
+		return this.index;
+	}
+
+	/**
+	 * Gets a project by its full name or, if no project has that full name, by the 
+	 * full or short name of the only project that matches it ignoring the case or
+	 * starting with it.
+	 *
+	 * @param name name of the project
+	 * @return the project, or null if it does not exist or the name is ambiguous
+	 */
+	public AbstractProject<?, ?> getProject(String name) {
+		Index index = getIndex();
+		if (index == null) {
+			return null;
+		}
+
+		AbstractProject<?, ?> project = getProject(index, name);
+		if (project == null) {
+			String fullName = index.projectNames.resolve(name);
+			if (fullName != null) {
+				project = getProject(index, fullName);
+			}
+		}
+
+		return project;
+	}
+
+	/**
+	 * Checks if a name is a pattern containing the * and ? wildcards.
+	 *
+	 * @param name name to check
+	 * @return true if the name contains a wildcard, otherwise false
+	 */
+	public static boolean isPattern(String name) {
+		return indexOfWildcard(name) >= 0;
+	}
+	
+	/**
+	 * Finds the first wildcard of a name.
+	 *
+	 * @param name name to check
+	 * @return position of the first wildcard, or -1 if there is none
+	 */
+	private static int indexOfWildcard(String name) {
+		for (int i = 0; i < name.length(); i++) {
+			if (WILDCARDS.indexOf(name.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Gets the projects whose full or short name matches a pattern, ignoring the case.
+	 * The * wildcard matches any sequence of characters and the ? wildcard matches any 
+	 * character.
+	 *
+	 * @param pattern pattern of the names
+	 * @return projects ordered by full name
+	 */
+	public List<AbstractProject<?, ?>> getProjects(String pattern) {
+		Index index = getIndex();
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		
+		// only the keys starting with the text before the first wildcard can match
+		int wildcard = indexOfWildcard(pattern);
+		String prefix = (wildcard < 0) ? pattern : pattern.substring(0, wildcard);
+		List<String> names = new ArrayList<>(index.projectNames.getNames(prefix));
+		Collections.sort(names);
+		Pattern regex = toRegex(pattern);
+		List<AbstractProject<?, ?>> projects = new ArrayList<>();
+		for (String fullName : names) {
+			String name = fullName.substring(fullName.lastIndexOf('/') + 1);
+			if (regex.matcher(fullName).matches() || regex.matcher(name).matches()) {
+				AbstractProject<?, ?> project = getProject(index, fullName);
+				if (project != null) {
+					projects.add(project);
+				}
+			}
+		}
+		
+		return projects;
+	}
+	
+	/**
+	 * Converts a pattern of names into a case-insensitive regular expression.
+	 *
+	 * @param pattern pattern of the names
+	 * @return regular expression
+	 */
+	private static Pattern toRegex(String pattern) {
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (WILDCARDS.indexOf(c) < 0) {
+				literal.append(c);
+				continue;
+			}
+			
+			if (literal.length() > 0) {
+				regex.append(Pattern.quote(literal.toString()));
+				literal.setLength(0);
+			}
+			regex.append((c == '*') ? ".*" : ".");
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		
+		return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+	
+	/**
+	 * Gets the full names of the projects whose names are similar to a name.
+	 *
+	 * @param name name of the project
+	 * @return full names of the projects, most similar first
+	 */
+	public List<String> getSuggestions(String name) {
+		Index index = getIndex();
+		if (index == null) {
+			return Collections.emptyList();
+		}
+
+		return index.projectNames.suggest(name, MAXIMUM_DISTANCE, MAXIMUM_SUGGESTIONS);
+	}
+
+	/**
+	 * Gets a project by its full name.
+	 *
+	 * @param index index of the running Jenkins instance
+	 * @param fullName full name of the project
+	 * @return the project, or null if it does not exist
+	 */
+	private static AbstractProject<?, ?> getProject(Index index, String fullName) {
+		AbstractProject<?, ?> project = index.projects.get(fullName);
+		// check if the name might exist before walking the item tree
+		if (project != null || !index.names.mightContain(fullName)) {
+			return project;
+		}
+
+		SecurityContext context = ACL.impersonate(ACL.SYSTEM);
+		try {
+			project = index.jenkins.getItemByFullName(fullName, AbstractProject.class);
+		} finally {
+			SecurityContextHolder.setContext(context);
+		}
+		if (project != null) {
+			index.projects.put(fullName, project);
+		}
+
+		return project;
+	}
+
+	/**
+	 * Adds the name of an item created, copied, renamed or moved. It waits for an index
+	 * being built, which may not contain the item.
+	 *
+	 * @param item item added
+	 */
+	public synchronized void added(Item item) {
+		Index index = this.index;
+		if (index == null || index.jenkins != Jenkins.getInstance()) {
+			return;
+		}
+
+		String fullName = item.getFullName();
+		index.names.put(fullName);
+		if (item instanceof AbstractProject) {
+			index.projectNames.put(fullName, fullName);
+			index.projectNames.put(item.getName(), fullName);
+		}
+		// a filter with too many names gives too many false positives
+		if (index.names.isFull()) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Removes an item deleted, renamed or moved, together with the items it contains.
+	 *
+	 * @param fullName previous full name of the item
+	 */
+	public synchronized void removed(String fullName) {
+		Index index = this.index;
+		if (index == null) {
+			return;
+		}
+
+		// the bloom filter cannot forget the name, so it is kept there
+		index.projects.remove(fullName);
+		removeName(index, fullName);
+		String prefix = fullName + "/";
+		for (String name : index.projectNames.getNames(prefix)) {
+			// the trie ignores the case, the full names do not
+			if (name.startsWith(prefix)) {
+				removeName(index, name);
+			}
+		}
+		Iterator<String> iterator = index.projects.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().startsWith(prefix)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes the full and short name of a project from the trie.
+	 *
+	 * @param index index of the running Jenkins instance
+	 * @param fullName full name of the project
+	 */
+	private static void removeName(Index index, String fullName) {
+		index.projectNames.remove(fullName, fullName);
+		index.projectNames.remove(fullName.substring(fullName.lastIndexOf('/') + 1), fullName);
+	}
+
+}
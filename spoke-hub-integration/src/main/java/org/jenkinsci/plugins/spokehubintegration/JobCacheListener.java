@@ -0,0 +1,44 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * Class that extends {@link ItemListener} class and keeps the {@link JobCache} 
+ * coherent with the Jenkins items.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class JobCacheListener extends ItemListener {
+	
+	@Override
+	public void onLoaded() {
+		JobCache.getInstance().rebuild();
+	}
+	
+	@Override
+	public void onCreated(Item item) {
+		JobCache.getInstance().added(item);
+	}
+	
+	@Override
+	public void onCopied(Item src, Item item) {
+		JobCache.getInstance().added(item);
+	}
+	
+	@Override
+	public void onDeleted(Item item) {
+		JobCache.getInstance().removed(item.getFullName());
+	}
+	
+	@Override
+	public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+		// it is called for renamed and moved items and for the items they contain
+		JobCache.getInstance().removed(oldFullName);
+		JobCache.getInstance().added(item);
+	}
+
+}
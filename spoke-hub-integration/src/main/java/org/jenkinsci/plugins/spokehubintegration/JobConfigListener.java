@@ -0,0 +1,29 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+
+/**
+ * Class that extends {@link SaveableListener} class and discards the cached 
+ * {@link CommandPlan}s and {@link ProjectParameters} of a job when its configuration 
+ * is saved.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class JobConfigListener extends SaveableListener {
+	
+	@Override
+	public void onChange(Saveable o, XmlFile file) {
+		if (o instanceof Item) {
+			String fullName = ((Item) o).getFullName();
+			CommandPlanCache.getInstance().invalidateJob(fullName);
+			ParameterCache.getInstance().invalidate(fullName);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.model.AbstractProject;
+import hudson.model.ParametersDefinitionProperty;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Singleton class that stores the {@link ProjectParameters} of the most recently 
+ * built projects.
+ * <p>
+ * The index of a project is discarded when the project is saved. It is also rebuilt 
+ * when the project has a new {@link ParametersDefinitionProperty}, which Jenkins 
+ * creates whenever the parameters are configured.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+public class ParameterCache {
+	
+	private static final long MAXIMUM_PROJECTS = 1000;
+	private static final ParameterCache CACHE = new ParameterCache();
+	private final Cache<String, ProjectParameters> parameters;
+	
+	/**
+	 * Creates an empty cache that evicts the least recently used projects.
+	 */
+	private ParameterCache() {
+		this.parameters = CacheBuilder.newBuilder()
+				.maximumSize(MAXIMUM_PROJECTS)
+				.build();
+	}
+	
+	/**
+	 * Gets the {@link ParameterCache} singleton.
+	 * 
+	 * @return the instance
+	 */
+	public static ParameterCache getInstance() {
+		return CACHE;
+	}
+	
+	/**
+	 * Gets the index of the parameters defined for a project.
+	 * 
+	 * @param project project to build
+	 * @return index of the parameters
+	 */
+	public ProjectParameters getParameters(AbstractProject<?, ?> project) {
+		String fullName = project.getFullName();
+		ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
+		ProjectParameters parameters = this.parameters.getIfPresent(fullName);
+		if (parameters == null || parameters.getProperty() != property) {
+			parameters = new ProjectParameters(property);
+			this.parameters.put(fullName, parameters);
+		}
+		
+		return parameters;
+	}
+	
+	/**
+	 * Discards the index of a project.
+	 * 
+	 * @param fullName full name of the project
+	 */
+	public void invalidate(String fullName) {
+		this.parameters.invalidate(fullName);
+	}
+
+}
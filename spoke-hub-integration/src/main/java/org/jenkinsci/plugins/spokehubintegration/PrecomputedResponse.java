@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.servlet.ServletException;
+
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Class that implements {@link HttpResponse} interface and sends a JSON response
+ * serialized only once, when the response is created.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class PrecomputedResponse implements HttpResponse {
+
+	private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+	private final byte[] body;
+	private final int status;
+
+	/**
+	 * Serializes an HTTP response.
+	 *
+	 * @param json response content
+	 * @param status status code of the response
+	 */
+	public PrecomputedResponse(JSONObject json, int status) {
+		this.body = json.toString().getBytes(StandardCharsets.UTF_8);
+		this.status = status;
+	}
+
+	@Override
+	public void generateResponse(StaplerRequest req, StaplerResponse res, Object obj)
+			throws IOException, ServletException {
+
+		res.setStatus(this.status);
+		res.setContentType(CONTENT_TYPE);
+		res.setContentLength(this.body.length);
+		res.getOutputStream().write(this.body);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + Arrays.hashCode(this.body);
+		result = prime * result + this.status;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (!(obj instanceof PrecomputedResponse))
+			return false;
+		PrecomputedResponse other = (PrecomputedResponse) obj;
+		if (!Arrays.equals(this.body, other.body))
+			return false;
+		if (this.status != other.status)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "PrecomputedResponse [body=" + new String(this.body, StandardCharsets.UTF_8)
+				+ ", status=" + this.status + "]";
+	}
+
+}
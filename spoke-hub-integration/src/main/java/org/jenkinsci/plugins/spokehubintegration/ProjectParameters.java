@@ -0,0 +1,137 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.model.BooleanParameterDefinition;
+import hudson.model.ChoiceParameterDefinition;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.StringParameterDefinition;
+import hudson.model.TextParameterDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jenkinsci.plugins.spokehubintegration.command.ParameterValueFactory;
+import org.jenkinsci.plugins.spokehubintegration.command.ParameterValueFactory.Converter;
+
+/**
+ * Immutable index of the parameters defined for a project.
+ * <p>
+ * Each parameter is identified by its position in the definitions, so that a build
+ * can track the parameters entered with a {@link java.util.BitSet}. The converter of 
+ * each parameter is chosen only once, and so are the default values of the parameter 
+ * types whose default never changes.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+public final class ProjectParameters {
+	
+	// types whose default value depends only on the definition
+	private static final Set<Class<?>> STABLE_DEFAULTS = new HashSet<Class<?>>(Arrays.asList(
+			StringParameterDefinition.class, TextParameterDefinition.class, 
+			BooleanParameterDefinition.class, ChoiceParameterDefinition.class));
+	private final ParametersDefinitionProperty property;
+	private final List<ParameterDefinition> definitions;
+	private final Map<String, Integer> indexes;
+	private final ParameterValue[] defaults;
+	private final Converter[] converters;
+	
+	/**
+	 * Indexes the parameters defined for a project.
+	 * 
+	 * @param property parameters defined for the project, or null if the project is 
+	 * not parameterized
+	 */
+	public ProjectParameters(ParametersDefinitionProperty property) {
+		this.property = property;
+		List<ParameterDefinition> definitions = (property != null) 
+				? property.getParameterDefinitions() : Collections.<ParameterDefinition>emptyList();
+		this.definitions = Collections.unmodifiableList(Arrays.asList(
+				definitions.toArray(new ParameterDefinition[definitions.size()])));
+		Map<String, Integer> indexes = new HashMap<>();
+		this.defaults = new ParameterValue[this.definitions.size()];
+		this.converters = new Converter[this.definitions.size()];
+		for (int i = 0; i < this.definitions.size(); i++) {
+			ParameterDefinition definition = this.definitions.get(i);
+			// the first definition of a name wins, as in Jenkins
+			if (!indexes.containsKey(definition.getName())) {
+				indexes.put(definition.getName(), i);
+			}
+			this.converters[i] = ParameterValueFactory.getConverter(definition);
+			// the exact class is checked because a subclass may compute its default
+			if (STABLE_DEFAULTS.contains(definition.getClass())) {
+				this.defaults[i] = definition.getDefaultParameterValue();
+			}
+		}
+		this.indexes = Collections.unmodifiableMap(indexes);
+	}
+	
+	/**
+	 * Gets the property the parameters have been read from.
+	 * 
+	 * @return parameters defined for the project, or null if it is not parameterized
+	 */
+	public ParametersDefinitionProperty getProperty() {
+		return this.property;
+	}
+	
+	/**
+	 * Gets the number of parameters.
+	 * 
+	 * @return number of parameters
+	 */
+	public int size() {
+		return this.definitions.size();
+	}
+	
+	/**
+	 * Gets the position of a parameter.
+	 * 
+	 * @param name name of the parameter
+	 * @return position of the parameter, or -1 if it is not defined
+	 */
+	public int indexOf(String name) {
+		Integer index = this.indexes.get(name);
+		return (index != null) ? index : -1;
+	}
+	
+	/**
+	 * Gets the definition of a parameter.
+	 * 
+	 * @param index position of the parameter
+	 * @return definition of the parameter
+	 */
+	public ParameterDefinition getDefinition(int index) {
+		return this.definitions.get(index);
+	}
+	
+	/**
+	 * Creates the value of a parameter from the value entered by the user.
+	 * 
+	 * @param index position of the parameter
+	 * @param value value entered by the user
+	 * @return value of the parameter
+	 * @throws IllegalArgumentException if the value is not valid for the parameter
+	 */
+	public ParameterValue createValue(int index, String value) {
+		return this.converters[index].createValue(value);
+	}
+	
+	/**
+	 * Gets the default value of a parameter, created only once if its type allows it.
+	 * 
+	 * @param index position of the parameter
+	 * @return default value of the parameter
+	 */
+	public ParameterValue getDefaultValue(int index) {
+		ParameterValue value = this.defaults[index];
+		return (value != null) ? value : this.definitions.get(index).getDefaultParameterValue();
+	}
+
+}
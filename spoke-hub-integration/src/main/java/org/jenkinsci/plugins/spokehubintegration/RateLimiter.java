@@ -0,0 +1,134 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.spokehubintegration.utility.TokenBucket;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Singleton class that limits the number of commands that each Slack user and each
+ * Slack channel can send per minute.
+ * <p>
+ * Every user and every channel has a {@link TokenBucket} for the cheap commands and
+ * one for the expensive commands. A command takes a token from both the buckets of 
+ * its user and of its channel, and the token of the user is given back if the channel
+ * is over the limit. The buckets are kept in a bounded map that evicts the buckets 
+ * not used for a while.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class RateLimiter {
+
+	private static final long PERIOD_MINUTES = 1;
+	private static final long MAXIMUM_BUCKETS = 10000;
+	private static final RateLimiter LIMITER = new RateLimiter(Ticker.systemTicker());
+	private final Ticker ticker;
+	private volatile Cache<String, TokenBucket> buckets;
+	private volatile int cheapCommandsPerMinute;
+	private volatile int expensiveCommandsPerMinute;
+
+	/**
+	 * Creates the limiter using the default settings.
+	 * 
+	 * @param ticker source of the time in nanoseconds
+	 */
+	RateLimiter(Ticker ticker) {
+		this.ticker = ticker;
+		this.cheapCommandsPerMinute = SlashCommandGlobalConfiguration.DEFAULT_CHEAP_COMMANDS_PER_MINUTE;
+		this.expensiveCommandsPerMinute = SlashCommandGlobalConfiguration.DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE;
+		this.buckets = createBuckets(ticker);
+	}
+
+	/**
+	 * Gets the {@link RateLimiter} singleton.
+	 *
+	 * @return the instance
+	 */
+	public static RateLimiter getInstance() {
+		return LIMITER;
+	}
+
+	/**
+	 * Creates the map that holds the buckets. A bucket not used for a period is full
+	 * again, so it can be evicted without changing the limits.
+	 *
+	 * @param ticker source of the time in nanoseconds
+	 * @return map of the buckets
+	 */
+	private static Cache<String, TokenBucket> createBuckets(Ticker ticker) {
+		return CacheBuilder.newBuilder()
+				.maximumSize(MAXIMUM_BUCKETS)
+				.expireAfterAccess(PERIOD_MINUTES, TimeUnit.MINUTES)
+				.ticker(ticker)
+				.build();
+	}
+
+	/**
+	 * Applies the limits of the plugin and empties the map of the buckets.
+	 *
+	 * @param slashCommandConfiguration slash command setup
+	 */
+	public void configure(SlashCommandGlobalConfiguration slashCommandConfiguration) {
+		this.cheapCommandsPerMinute = slashCommandConfiguration.getCheapCommandsPerMinute();
+		this.expensiveCommandsPerMinute = slashCommandConfiguration.getExpensiveCommandsPerMinute();
+		this.buckets = createBuckets(this.ticker);
+	}
+
+	/**
+	 * Takes a token from the buckets of the user and of the channel that sent the
+	 * command.
+	 *
+	 * @param expensive true if the requested command is expensive
+	 * @param data data sent by Slack
+	 * @return true if both the user and the channel are below the limit, otherwise
+	 * false
+	 */
+	public boolean tryAcquire(boolean expensive, SlackData data) {
+		int limit = expensive ? this.expensiveCommandsPerMinute : this.cheapCommandsPerMinute;
+		// a limit equal to 0 disables the check
+		if (limit <= 0) {
+			return true;
+		}
+
+		String cost = expensive ? "expensive:" : "cheap:";
+		TokenBucket user = getBucket(cost + "user:" + data.getTeam_id() + ":" + data.getUser_id(), limit);
+		if (!user.tryAcquire()) {
+			return false;
+		}
+		TokenBucket channel = getBucket(cost + "channel:" + data.getTeam_id() + ":" + data.getChannel_id(), 
+				limit);
+		// check if the channel is over the limit, so that the command is not counted
+		if (!channel.tryAcquire()) {
+			user.release();
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets a bucket, creating it if it does not exist.
+	 *
+	 * @param key key of the bucket
+	 * @param limit capacity of the bucket
+	 * @return the bucket
+	 */
+	private TokenBucket getBucket(String key, int limit) {
+		Cache<String, TokenBucket> buckets = this.buckets;
+		TokenBucket bucket = buckets.getIfPresent(key);
+		if (bucket == null) {
+			TokenBucket created = new TokenBucket(limit, PERIOD_MINUTES, TimeUnit.MINUTES, this.ticker);
+			bucket = buckets.asMap().putIfAbsent(key, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+
+		return bucket;
+	}
+
+}
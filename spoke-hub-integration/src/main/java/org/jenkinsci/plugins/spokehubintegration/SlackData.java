@@ -1,5 +1,7 @@
 package org.jenkinsci.plugins.spokehubintegration;
 
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandLine;
+
 /**
  * This class encapsulates the data sent by Slack using an HTTP POST request.
  * 
@@ -24,6 +26,10 @@ public class SlackData {
     private String command;
     private String text;
     private String response_url;
+    private String trigger_id;
+    // tokens of the text, scanned the first time they are requested
+    private transient CommandLine commandLine;
+    private transient CommandPlan commandPlan;
     
     /**
      * Gets the slash command token.
@@ -185,6 +191,45 @@ public class SlackData {
 	 */
 	public void setText(String text) {
 		this.text = text;
+		this.commandLine = null;
+		this.commandPlan = null;
+	}
+	
+	/**
+	 * Gets the tokens of the message text. The text is scanned only once, so all the 
+	 * commands share the same tokens.
+	 * 
+	 * @return tokens of the message text
+	 * @throws NullPointerException if the message text is null
+	 */
+	public CommandLine getCommandLine() {
+		CommandLine commandLine = this.commandLine;
+		if (commandLine == null) {
+			commandLine = new CommandLine(this.text);
+			this.commandLine = commandLine;
+		}
+		
+		return commandLine;
+	}
+	
+	/**
+	 * Gets the plan of the message text.
+	 * 
+	 * @return plan of the message text, or null if the text has not been planned by the 
+	 * {@link CommandController}
+	 */
+	public CommandPlan getCommandPlan() {
+		return this.commandPlan;
+	}
+	
+	/**
+	 * Updates the plan of the message text, whose tokens replace the ones of the text.
+	 * 
+	 * @param commandPlan plan of the message text
+	 */
+	void setCommandPlan(CommandPlan commandPlan) {
+		this.commandPlan = commandPlan;
+		this.commandLine = commandPlan.getCommandLine();
 	}
 	
 	/**
@@ -205,4 +250,22 @@ public class SlackData {
 		this.response_url = response_url;
 	}
 	
+	/**
+	 * Gets the trigger id that identifies the command typed by the user.
+	 * 
+	 * @return trigger id
+	 */
+	public String getTrigger_id() {
+		return this.trigger_id;
+	}
+	
+	/**
+	 * Updates the trigger id.
+	 * 
+	 * @param trigger_id new trigger id
+	 */
+	public void setTrigger_id(String trigger_id) {
+		this.trigger_id = trigger_id;
+	}
+	
 }
@@ -1,5 +1,6 @@
 package org.jenkinsci.plugins.spokehubintegration;
 
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,13 +30,36 @@ public class SlackWebhookEndpoint implements UnprotectedRootAction {
 	 */
 	
 	private static final Logger LOGGER = Logger.getLogger(SlackWebhookEndpoint.class.getName());
+	// the response is visible only to the user who typed the command
+	private static final HttpResponse BUSY_RESPONSE = new PrecomputedResponse(
+			JSONResponse.createResponse(Messages.requestRejected(), Messages.danger(), 
+					Messages.ephemeral()), StaplerResponse.SC_OK);
+	private static final HttpResponse RESTART_RESPONSE = new PrecomputedResponse(
+			JSONResponse.createResponse(Messages.restartJenkins(), Messages.danger(), 
+					Messages.ephemeral()), StaplerResponse.SC_OK);
+	private static final HttpResponse TOKEN_NOT_SET_RESPONSE = new PrecomputedResponse(
+			JSONResponse.createResponse(Messages.tokenNotSet(), Messages.danger(), 
+					Messages.ephemeral()), StaplerResponse.SC_UNAUTHORIZED);
+	private static final HttpResponse INVALID_TOKEN_RESPONSE = new PrecomputedResponse(
+			JSONResponse.createResponse(Messages.invalidToken(), Messages.danger(), 
+					Messages.ephemeral()), StaplerResponse.SC_UNAUTHORIZED);
 	private SlashCommandGlobalConfiguration slashCommandConfiguration;
     
 	/**
 	 * Initializes a {@link SlashCommandGlobalConfiguration} object.
 	 */
     public SlackWebhookEndpoint() {
-    	this.slashCommandConfiguration = SlashCommandGlobalConfiguration.getInstance();
+    	this(SlashCommandGlobalConfiguration.getInstance());
+	}
+    
+	/**
+	 * Uses a {@link SlashCommandGlobalConfiguration} object.
+	 * 
+	 * @param slashCommandConfiguration slash command setup, or null if it has not 
+	 * been loaded
+	 */
+	SlackWebhookEndpoint(SlashCommandGlobalConfiguration slashCommandConfiguration) {
+		this.slashCommandConfiguration = slashCommandConfiguration;
 	}
 
 	@Override
@@ -61,13 +85,60 @@ public class SlackWebhookEndpoint implements UnprotectedRootAction {
 	 */
 	@RequirePOST
     public HttpResponse doIndex(StaplerRequest request) {
-		CommandThread thread = new CommandThread(this.slashCommandConfiguration, request);
-		thread.start();
+		// checks if jenkins was restarted
+		if (this.slashCommandConfiguration == null) {
+			LOGGER.log(Level.SEVERE, Messages.restartJenkins());
+			return RESTART_RESPONSE;
+		}
+		
+		// check if the token is set
+		if (!this.slashCommandConfiguration.isSlackSlashCommandTokenSet()) {
+			LOGGER.log(Level.SEVERE, Messages.tokenNotSet());
+			return TOKEN_NOT_SET_RESPONSE;
+		}
+		
+		// check if the token is correct before any work is scheduled
+		if (!this.slashCommandConfiguration.isValidToken(request.getParameter("token"))) {
+			LOGGER.log(Level.FINE, Messages.invalidToken());
+			return INVALID_TOKEN_RESPONSE;
+		}
+		
+		HttpResponse received = this.slashCommandConfiguration.getReceivedResponse();
+		IdempotencyCache cache = IdempotencyCache.getInstance();
+		String key = cache.getKey(request);
+		HttpResponse previous = cache.putIfAbsent(key, request, received);
+		// check if Slack already delivered this request
+		if (previous != null) {
+			LOGGER.log(Level.INFO, Messages.duplicateRequest(cache.getRetryNum(request)));
+			return previous;
+		}
+		
+		CommandExecutor executor = CommandExecutor.getInstance();
+		// check if there are too many pending commands before binding the request
+		if (!executor.tryAcquire()) {
+			cache.invalidate(key);
+			LOGGER.log(Level.WARNING, Messages.requestRejected());
+			return BUSY_RESPONSE;
+		}
+		
+		CommandThread thread;
+		try {
+			thread = new CommandThread(request);
+		} catch (RuntimeException e) {
+			executor.release();
+			cache.invalidate(key);
+			throw e;
+		}
+		try {
+			executor.execute(thread);
+		} catch (RejectedExecutionException e) {
+			cache.invalidate(key);
+			LOGGER.log(Level.WARNING, Messages.requestRejected(), e);
+			return BUSY_RESPONSE;
+		}
 		
-		String message = Messages.requestReceived();
-		LOGGER.log(Level.INFO, message);
-		return new JSONResponse(new SlackMessage(message, Messages.good()), 
-				StaplerResponse.SC_OK);
+		LOGGER.log(Level.INFO, Messages.requestReceived());
+		return received;
 	}
 
 }
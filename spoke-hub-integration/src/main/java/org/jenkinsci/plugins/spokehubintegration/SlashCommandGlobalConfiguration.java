@@ -1,9 +1,15 @@
 package org.jenkinsci.plugins.spokehubintegration;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 import net.sf.json.JSONObject;
 
+import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 
 import hudson.Extension;
 import hudson.util.FormValidation;
@@ -26,14 +32,38 @@ public class SlashCommandGlobalConfiguration extends GlobalConfiguration {
 	 * present in config.jelly file
 	 */
 	
+	public static final int DEFAULT_CORE_POOL_SIZE = 2;
+	public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+	public static final int DEFAULT_MAXIMUM_PENDING_COMMANDS = 110;
+	public static final int DEFAULT_CHEAP_COMMANDS_PER_MINUTE = 30;
+	public static final int DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE = 5;
+	
 	private String slackSlashCommandToken;
 	private boolean responseType;
+	private int corePoolSize = DEFAULT_CORE_POOL_SIZE;
+	private int maximumPoolSize = DEFAULT_MAXIMUM_POOL_SIZE;
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private boolean virtualThreads;
+	private int maximumPendingCommands = DEFAULT_MAXIMUM_PENDING_COMMANDS;
+	private int cheapCommandsPerMinute = DEFAULT_CHEAP_COMMANDS_PER_MINUTE;
+	private int expensiveCommandsPerMinute = DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE;
+	// the acknowledgement depends only on the response type, so it is serialized 
+	// once per configuration change
+	private transient volatile HttpResponse receivedResponse;
+	// digest of the token, compared with the digest of the token of each request
+	private transient volatile byte[] slackSlashCommandTokenDigest;
 	
 	/**
-	 * Loads the configuration data.
+	 * Loads the configuration data and applies it to the {@link CommandExecutor} 
+	 * and to the {@link RateLimiter}.
 	 */
     public SlashCommandGlobalConfiguration() {
         load();
+        updateReceivedResponse();
+        updateTokenDigest();
+        CommandExecutor.getInstance().configure(this);
+        RateLimiter.getInstance().configure(this);
     }
 
     /**
@@ -52,6 +82,60 @@ public class SlashCommandGlobalConfiguration extends GlobalConfiguration {
      */
     public void setSlackSlashCommandToken(String slackSlashCommandToken) {
         this.slackSlashCommandToken = slackSlashCommandToken;
+        updateTokenDigest();
+    }
+
+    /**
+     * Checks if the slash command token is set.
+     * 
+     * @return true if the token is set, otherwise false
+     */
+    public boolean isSlackSlashCommandTokenSet() {
+    	return this.slackSlashCommandTokenDigest != null;
+    }
+
+    /**
+     * Checks if a token matches the slash command token. The comparison takes the 
+     * same time wherever the tokens differ.
+     * 
+     * @param token token sent by Slack
+     * @return true if the token matches, otherwise false
+     */
+    public boolean isValidToken(String token) {
+    	byte[] expected = this.slackSlashCommandTokenDigest;
+    	if (expected == null || token == null) {
+    		return false;
+    	}
+    	
+    	return MessageDigest.isEqual(expected, digest(token));
+    }
+
+    /**
+     * Computes the digest of the slash command token.
+     */
+    private void updateTokenDigest() {
+    	String token = this.slackSlashCommandToken;
+    	if (token == null || token.isEmpty()) {
+    		this.slackSlashCommandTokenDigest = null;
+    	} else {
+    		this.slackSlashCommandTokenDigest = digest(token);
+    	}
+    }
+
+    /**
+     * Computes the SHA-256 digest of a token, so that tokens of any length are 
+     * compared as arrays of the same length.
+     * 
+     * @param token token
+     * @return digest of the token
+     */
+    private static byte[] digest(String token) {
+    	try {
+    		return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    	} catch (NoSuchAlgorithmException e) {
+    		// every Java platform is required to support SHA-256
+    		throw new IllegalStateException(e);
+    	}
     }
 
     /**
@@ -70,6 +154,171 @@ public class SlashCommandGlobalConfiguration extends GlobalConfiguration {
      */
 	public void setResponseType(boolean responseType) {
 		this.responseType = responseType;
+		updateReceivedResponse();
+	}
+
+	/**
+	 * Gets the response sent to Slack when a command is received.
+	 * 
+	 * @return acknowledgement of the command
+	 */
+	public HttpResponse getReceivedResponse() {
+		return this.receivedResponse;
+	}
+
+	/**
+	 * Serializes the response sent to Slack when a command is received.
+	 */
+	private void updateReceivedResponse() {
+		String response_type = this.responseType ? Messages.inChannel() : Messages.ephemeral();
+		this.receivedResponse = new PrecomputedResponse(JSONResponse.createResponse(
+				Messages.requestReceived(), Messages.good(), response_type), StaplerResponse.SC_OK);
+	}
+
+    /**
+     * Gets the number of threads kept alive to execute the commands.
+     * 
+     * @return number of threads kept alive
+     */
+	public int getCorePoolSize() {
+		return this.corePoolSize;
+	}
+
+	/**
+	 * Updates the number of threads kept alive to execute the commands.
+	 * 
+	 * @param corePoolSize new number of threads kept alive
+	 */
+	public void setCorePoolSize(int corePoolSize) {
+		this.corePoolSize = corePoolSize;
+	}
+
+	/**
+	 * Gets the maximum number of threads that execute the commands.
+	 * 
+	 * @return maximum number of threads
+	 */
+	public int getMaximumPoolSize() {
+		return this.maximumPoolSize;
+	}
+
+	/**
+	 * Updates the maximum number of threads that execute the commands.
+	 * 
+	 * @param maximumPoolSize new maximum number of threads
+	 */
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		this.maximumPoolSize = maximumPoolSize;
+	}
+
+	/**
+	 * Gets the maximum number of commands waiting for a thread.
+	 * 
+	 * @return maximum number of waiting commands
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Updates the maximum number of commands waiting for a thread.
+	 * 
+	 * @param queueCapacity new maximum number of waiting commands
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Checks if the commands are executed on virtual threads.
+	 * 
+	 * @return true if the commands are executed on virtual threads, otherwise false
+	 */
+	public boolean getVirtualThreads() {
+		return this.virtualThreads;
+	}
+
+	/**
+	 * Updates the execution of the commands on virtual threads.
+	 * 
+	 * @param virtualThreads true to execute the commands on virtual threads
+	 */
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	/**
+	 * Gets the maximum number of commands running or waiting for a thread.
+	 * 
+	 * @return maximum number of pending commands
+	 */
+	public int getMaximumPendingCommands() {
+		return this.maximumPendingCommands;
+	}
+
+	/**
+	 * Updates the maximum number of commands running or waiting for a thread.
+	 * 
+	 * @param maximumPendingCommands new maximum number of pending commands
+	 */
+	public void setMaximumPendingCommands(int maximumPendingCommands) {
+		this.maximumPendingCommands = maximumPendingCommands;
+	}
+
+	/**
+	 * Gets the number of cheap commands that a user or a channel can send per minute.
+	 * 
+	 * @return number of cheap commands per minute
+	 */
+	public int getCheapCommandsPerMinute() {
+		return this.cheapCommandsPerMinute;
+	}
+
+	/**
+	 * Updates the number of cheap commands that a user or a channel can send per minute.
+	 * 
+	 * @param cheapCommandsPerMinute new number of cheap commands per minute
+	 */
+	public void setCheapCommandsPerMinute(int cheapCommandsPerMinute) {
+		this.cheapCommandsPerMinute = cheapCommandsPerMinute;
+	}
+
+	/**
+	 * Gets the number of expensive commands that a user or a channel can send per minute.
+	 * 
+	 * @return number of expensive commands per minute
+	 */
+	public int getExpensiveCommandsPerMinute() {
+		return this.expensiveCommandsPerMinute;
+	}
+
+	/**
+	 * Updates the number of expensive commands that a user or a channel can send per 
+	 * minute.
+	 * 
+	 * @param expensiveCommandsPerMinute new number of expensive commands per minute
+	 */
+	public void setExpensiveCommandsPerMinute(int expensiveCommandsPerMinute) {
+		this.expensiveCommandsPerMinute = expensiveCommandsPerMinute;
+	}
+
+	/**
+	 * Gets the number of commands running or waiting for a thread.
+	 * 
+	 * @return number of pending commands
+	 */
+	public int getPendingCommands() {
+		return CommandExecutor.getInstance().getPendingCommands();
+	}
+
+	/**
+	 * Gets the number of commands rejected since Jenkins started because too many 
+	 * commands were pending.
+	 * 
+	 * @return number of rejected commands
+	 */
+	public long getRejectedCommands() {
+		return CommandExecutor.getInstance().getRejectedCommands();
 	}
 
 	/**
@@ -86,10 +335,90 @@ public class SlashCommandGlobalConfiguration extends GlobalConfiguration {
         return FormValidation.ok();
     }
 
+    /**
+     * Checks if the number of threads kept alive is a non-negative number.
+     * 
+     * @param value number of threads kept alive
+     * @return ok if the value is a non-negative number, otherwise error
+     */
+    public FormValidation doCheckCorePoolSize(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    /**
+     * Checks if the maximum number of threads is a positive number.
+     * 
+     * @param value maximum number of threads
+     * @return ok if the value is a positive number, otherwise error
+     */
+    public FormValidation doCheckMaximumPoolSize(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    /**
+     * Checks if the maximum number of waiting commands is a positive number.
+     * 
+     * @param value maximum number of waiting commands
+     * @return ok if the value is a positive number, otherwise error
+     */
+    public FormValidation doCheckQueueCapacity(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    /**
+     * Checks if the maximum number of pending commands is a positive number.
+     * 
+     * @param value maximum number of pending commands
+     * @return ok if the value is a positive number, otherwise error
+     */
+    public FormValidation doCheckMaximumPendingCommands(@QueryParameter String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    /**
+     * Checks if the number of cheap commands per minute is a non-negative number.
+     * 
+     * @param value number of cheap commands per minute
+     * @return ok if the value is a non-negative number, otherwise error
+     */
+    public FormValidation doCheckCheapCommandsPerMinute(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    /**
+     * Checks if the number of expensive commands per minute is a non-negative number.
+     * 
+     * @param value number of expensive commands per minute
+     * @return ok if the value is a non-negative number, otherwise error
+     */
+    public FormValidation doCheckExpensiveCommandsPerMinute(@QueryParameter String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads when they are requested.
+     * 
+     * @param value true if the commands must be executed on virtual threads
+     * @return ok if virtual threads are not requested or are supported, 
+     * otherwise warning
+     */
+    public FormValidation doCheckVirtualThreads(@QueryParameter boolean value) {
+        if (value && !CommandExecutor.isVirtualThreadSupported())
+            return FormValidation.warning(Messages.virtualThreadsNotSupported());
+
+        return FormValidation.ok();
+    }
+
     @Override
     public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
         req.bindJSON(this, json);
         save();
+        updateReceivedResponse();
+        updateTokenDigest();
+        CommandExecutor.getInstance().configure(this);
+        RateLimiter.getInstance().configure(this);
+        // apply an edited command mappings file without waiting for the watcher
+        CommandController.getInstance().reloadIfModified();
         
         return true;
     }
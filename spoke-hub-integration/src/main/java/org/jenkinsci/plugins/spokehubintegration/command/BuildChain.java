@@ -0,0 +1,353 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.AbstractProject;
+import hudson.model.Result;
+import hudson.security.ACL;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.util.Timer;
+
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.jenkinsci.plugins.spokehubintegration.JSONResponse;
+import org.jenkinsci.plugins.spokehubintegration.SlackData;
+import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandLine;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Class that runs a chain of builds started from Slack, made of projects that depend
+ * on other projects of the chain.
+ * <p>
+ * The builds of the chain are marked with a {@link BuildChainAction}, so that
+ * {@link BuildChainListener} and {@link CancelledBuildListener} notify the chain
+ * when they complete or are cancelled, without any thread waiting for them. A project
+ * is scheduled as soon as the builds of all its upstream projects succeed, so the
+ * independent paths of the chain are built concurrently, and the projects depending
+ * on a failed build are not built. The progress of the chain is sent to the 
+ * response_url of the request. The chains are kept in memory, so the chains running 
+ * when Jenkins is restarted are not resumed.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+final class BuildChain {
+
+	private static final Logger LOGGER = Logger.getLogger(BuildChain.class.getName());
+	private static final ConcurrentMap<String, BuildChain> CHAINS = new ConcurrentHashMap<>();
+	private final String id = UUID.randomUUID().toString();
+	private final JenkinsReceiver receiver;
+	private final SlackData data;
+	private final CommandLine commandLine;
+	// from the full name of each project to its node, in the order typed
+	private final Map<String, Node> nodes = new LinkedHashMap<>();
+	// the following fields are guarded by this
+	private int pendingBuilds;
+	private int succeededBuilds;
+
+	/**
+	 * Project of the chain with the projects depending on it. The fields that change
+	 * while the chain runs are guarded by the chain.
+	 */
+	private static final class Node {
+
+		private final AbstractProject<?, ?> project;
+		private final Set<Node> downstreams = new LinkedHashSet<>();
+		// number of upstream projects whose builds have not succeeded yet
+		private int waitingUpstreams;
+		private boolean building;
+		private boolean blocked;
+
+		/**
+		 * Creates the node of a project.
+		 *
+		 * @param project project of the chain
+		 */
+		private Node(AbstractProject<?, ?> project) {
+			this.project = project;
+		}
+
+	}
+
+	/**
+	 * Creates a chain that contains no project.
+	 *
+	 * @param receiver receiver that schedules the builds
+	 * @param data data sent by Slack
+	 * @param commandLine entered arguments, containing the build parameters
+	 */
+	BuildChain(JenkinsReceiver receiver, SlackData data, CommandLine commandLine) {
+		this.receiver = receiver;
+		this.data = data;
+		this.commandLine = commandLine;
+	}
+
+	/**
+	 * Adds some projects to the chain, each of them depending on all the upstream 
+	 * projects.
+	 *
+	 * @param upstreams projects that must succeed first
+	 * @param projects projects to add
+	 */
+	void addProjects(Collection<AbstractProject<?, ?>> upstreams, 
+			Collection<AbstractProject<?, ?>> projects) {
+		for (AbstractProject<?, ?> project : projects) {
+			Node node = getNode(project);
+			for (AbstractProject<?, ?> upstream : upstreams) {
+				// check if the dependency has already been typed
+				if (getNode(upstream).downstreams.add(node)) {
+					node.waitingUpstreams++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the node of a project, adding it to the chain if it is not present.
+	 *
+	 * @param project project of the chain
+	 * @return node of the project
+	 */
+	private Node getNode(AbstractProject<?, ?> project) {
+		Node node = this.nodes.get(project.getFullName());
+		if (node == null) {
+			node = new Node(project);
+			this.nodes.put(project.getFullName(), node);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Gets the number of projects of the chain.
+	 *
+	 * @return number of projects
+	 */
+	int size() {
+		return this.nodes.size();
+	}
+
+	/**
+	 * Finds a project that depends on itself through the other projects of the chain.
+	 *
+	 * @return full name of a project of a cycle, or null if the chain has no cycles
+	 */
+	String findCycle() {
+		Map<Node, Integer> waitingUpstreams = new HashMap<>();
+		Deque<Node> ready = new ArrayDeque<>();
+		for (Node node : this.nodes.values()) {
+			waitingUpstreams.put(node, node.waitingUpstreams);
+			if (node.waitingUpstreams == 0) {
+				ready.add(node);
+			}
+		}
+		// the projects that are never ready belong to a cycle or depend on one
+		while (!ready.isEmpty()) {
+			Node node = ready.poll();
+			waitingUpstreams.remove(node);
+			for (Node downstream : node.downstreams) {
+				int waiting = waitingUpstreams.get(downstream) - 1;
+				waitingUpstreams.put(downstream, waiting);
+				if (waiting == 0) {
+					ready.add(downstream);
+				}
+			}
+		}
+
+		for (Node node : this.nodes.values()) {
+			if (waitingUpstreams.containsKey(node)) {
+				return node.project.getFullName();
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Schedules the projects of the chain that do not depend on other projects.
+	 *
+	 * @return response to the requested command
+	 */
+	synchronized SlackMessage start() {
+		CHAINS.put(this.id, this);
+		List<Node> roots = new ArrayList<>();
+		for (Node node : this.nodes.values()) {
+			if (node.waitingUpstreams == 0) {
+				roots.add(node);
+			}
+		}
+
+		StringBuilder builder = new StringBuilder();
+		boolean scheduled = schedule(roots, builder);
+		String message;
+		String color;
+		if (this.pendingBuilds == 0) {
+			CHAINS.remove(this.id);
+			message = Messages.chainNotStarted() + builder.toString();
+			color = Messages.danger();
+		} else {
+			message = Messages.chainStarted(this.nodes.size()) + builder.toString();
+			color = scheduled ? Messages.good() : Messages.warning();
+		}
+		LOGGER.log(Level.INFO, message);
+
+		return new SlackMessage(message, color);
+	}
+
+	/**
+	 * Notifies the chain that one of its builds has completed. The chain is updated on
+	 * a thread of the Jenkins timer, so the thread that completes the build is not
+	 * blocked by the scheduling of the downstream projects or by Slack.
+	 *
+	 * @param id identifier of the chain
+	 * @param projectName full name of the project built
+	 * @param number number of the build, or 0 if the build was cancelled in the queue
+	 * @param result result of the build, or null if the build was cancelled in the queue
+	 */
+	static void completed(String id, final String projectName, final int number, 
+			final Result result) {
+		final BuildChain chain = CHAINS.get(id);
+		// check if the chain is still running in this Jenkins instance
+		if (chain == null) {
+			return;
+		}
+
+		Timer.get().submit(new Runnable() {
+			@Override
+			public void run() {
+				SecurityContext context = ACL.impersonate(ACL.SYSTEM);
+				try {
+					SlackMessage message = chain.update(projectName, number, result);
+					if (message != null) {
+						JSONResponse response = new JSONResponse(message, StaplerResponse.SC_OK);
+						response.sendResponse(chain.data.getResponse_url());
+					}
+				} finally {
+					SecurityContextHolder.setContext(context);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Updates the chain with a completed build, scheduling the downstream projects 
+	 * whose upstream projects have all succeeded.
+	 *
+	 * @param projectName full name of the project built
+	 * @param number number of the build, or 0 if the build was cancelled in the queue
+	 * @param result result of the build, or null if the build was cancelled in the queue
+	 * @return message to send to Slack, or null if there is nothing to report
+	 */
+	synchronized SlackMessage update(String projectName, int number, Result result) {
+		Node node = this.nodes.get(projectName);
+		// check if the build is one of the builds the chain is waiting for
+		if (node == null || !node.building) {
+			return null;
+		}
+
+		node.building = false;
+		this.pendingBuilds--;
+		StringBuilder builder = new StringBuilder();
+		String color = Messages.good();
+		if (result == Result.SUCCESS) {
+			this.succeededBuilds++;
+			List<Node> ready = new ArrayList<>();
+			for (Node downstream : node.downstreams) {
+				if (--downstream.waitingUpstreams == 0 && !downstream.blocked) {
+					ready.add(downstream);
+				}
+			}
+			if (!ready.isEmpty()) {
+				builder.append(Messages.chainDownstreamScheduled(projectName, String.valueOf(number)));
+				if (!schedule(ready, builder)) {
+					color = Messages.danger();
+				}
+			}
+		} else {
+			if (result == null) {
+				builder.append(Messages.chainBuildCancelled(projectName));
+			} else {
+				builder.append(Messages.chainBuildFailed(projectName, String.valueOf(number), result));
+			}
+			block(node);
+			color = Messages.danger();
+		}
+		// check if the last build of the chain has completed
+		if (this.pendingBuilds == 0) {
+			CHAINS.remove(this.id);
+			if (builder.length() > 0) {
+				builder.append('\n');
+			}
+			if (this.succeededBuilds == this.nodes.size()) {
+				builder.append(Messages.chainCompleted(this.nodes.size()));
+			} else {
+				builder.append(Messages.chainIncomplete(this.succeededBuilds, this.nodes.size()));
+				color = Messages.danger();
+			}
+		}
+		if (builder.length() == 0) {
+			return null;
+		}
+
+		String message = builder.toString();
+		LOGGER.log(Level.INFO, message);
+		return new SlackMessage(message, color);
+	}
+
+	/**
+	 * Schedules the builds of some projects. The projects depending on a project that
+	 * cannot be scheduled are not built.
+	 *
+	 * @param ready projects whose upstream projects have all succeeded
+	 * @param builder message to which the result of each project is added
+	 * @return true if all the projects have been scheduled, otherwise false
+	 */
+	private boolean schedule(List<Node> ready, StringBuilder builder) {
+		boolean scheduled = true;
+		for (Node node : ready) {
+			SlackMessage result = this.receiver.scheduleBuild(this.data, node.project, this.commandLine,
+					new BuildChainAction(this.id));
+			if (Messages.good().equals(result.getColor())) {
+				node.building = true;
+				this.pendingBuilds++;
+			} else {
+				block(node);
+				scheduled = false;
+			}
+			builder.append('\n').append(result.getText());
+		}
+
+		return scheduled;
+	}
+
+	/**
+	 * Marks the projects depending on a project that did not succeed, so that they
+	 * are never scheduled.
+	 *
+	 * @param node project that did not succeed
+	 */
+	private void block(Node node) {
+		for (Node downstream : node.downstreams) {
+			if (!downstream.blocked) {
+				downstream.blocked = true;
+				block(downstream);
+			}
+		}
+	}
+
+}
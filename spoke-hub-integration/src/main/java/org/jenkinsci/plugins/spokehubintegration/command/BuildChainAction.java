@@ -0,0 +1,52 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.Action;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+
+import java.util.List;
+
+/**
+ * Class that marks the builds scheduled by a {@link BuildChain}.
+ * <p>
+ * A build of a chain is never merged with a build of the same project already in the
+ * queue, otherwise the chain would not be notified of its completion.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class BuildChainAction extends InvisibleAction implements Queue.QueueAction {
+
+	private final String chainId;
+
+	/**
+	 * Stores the identifier of the chain.
+	 *
+	 * @param chainId identifier of the chain
+	 */
+	public BuildChainAction(String chainId) {
+		this.chainId = chainId;
+	}
+
+	/**
+	 * Gets the identifier of the chain.
+	 *
+	 * @return identifier of the chain
+	 */
+	public String getChainId() {
+		return this.chainId;
+	}
+
+	@Override
+	public boolean shouldSchedule(List<Action> actions) {
+		for (Action action : actions) {
+			if (action instanceof BuildChainAction 
+					&& this.chainId.equals(((BuildChainAction) action).chainId)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,28 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Class that extends {@link RunListener} class and notifies the {@link BuildChain}
+ * of a build when it completes.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class BuildChainListener extends RunListener<Run<?, ?>> {
+
+	@Override
+	public void onCompleted(Run<?, ?> run, TaskListener listener) {
+		BuildChainAction action = run.getAction(BuildChainAction.class);
+		// check if the build belongs to a chain
+		if (action != null) {
+			BuildChain.completed(action.getChainId(), run.getParent().getFullName(), 
+					run.getNumber(), run.getResult());
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+
+import java.util.List;
+
+/**
+ * Class that extends {@link QueueListener} class and notifies the {@link BuildChain},
+ * the {@link TestShards} or the test requests of a build when it is cancelled before 
+ * starting.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class CancelledBuildListener extends QueueListener {
+
+	@Override
+	public void onLeft(Queue.LeftItem item) {
+		// check if the item has been cancelled
+		if (!item.isCancelled()) {
+			return;
+		}
+		
+		String projectName = (item.task instanceof Item) ? ((Item) item.task).getFullName() 
+				: item.task.getFullDisplayName();
+		BuildChainAction chainAction = item.getAction(BuildChainAction.class);
+		if (chainAction != null) {
+			BuildChain.completed(chainAction.getChainId(), projectName, 0, null);
+		}
+		TestShardAction shardAction = item.getAction(TestShardAction.class);
+		if (shardAction != null) {
+			TestShards.completed(shardAction.getShardsId(), shardAction.getShard(), null);
+		}
+		List<SlackResponseAction> responseActions = item.getActions(SlackResponseAction.class);
+		if (!responseActions.isEmpty()) {
+			SlackResponseListener.cancelled(projectName, responseActions);
+		}
+	}
+
+}
@@ -3,28 +3,44 @@ package org.jenkinsci.plugins.spokehubintegration.command;
 import hudson.matrix.MatrixProject;
 import hudson.maven.AbstractMavenProject;
 import hudson.maven.MavenModuleSet;
+import hudson.maven.MavenModuleSetBuild;
+import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
+import hudson.model.Action;
 import hudson.model.ExternalJob;
-import hudson.model.ParameterDefinition;
 import hudson.model.ParameterValue;
 import hudson.model.TopLevelItem;
 import hudson.model.ParametersAction;
-import hudson.model.ParametersDefinitionProperty;
 import hudson.security.ACL;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jenkins.model.Jenkins;
 
+import org.jenkinsci.plugins.spokehubintegration.BuildCoalescingProperty;
+import org.jenkinsci.plugins.spokehubintegration.CommandExecutor;
+import org.jenkinsci.plugins.spokehubintegration.CommandPlan;
+import org.jenkinsci.plugins.spokehubintegration.JobCache;
+import org.jenkinsci.plugins.spokehubintegration.ParameterCache;
+import org.jenkinsci.plugins.spokehubintegration.ProjectParameters;
 import org.jenkinsci.plugins.spokehubintegration.SlackData;
 import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
 import org.jenkinsci.plugins.spokehubintegration.exception.WrongParameterSyntaxException;
 import org.jenkinsci.plugins.spokehubintegration.exception.InvalidParameterException;
+import org.jenkinsci.plugins.spokehubintegration.exception.InvalidParameterValueException;
 import org.jenkinsci.plugins.spokehubintegration.exception.WrongTestScopeException;
+import org.jenkinsci.plugins.spokehubintegration.utility.CommandLine;
 
 /**
  * Class that executes commands.
@@ -35,8 +51,7 @@ import org.jenkinsci.plugins.spokehubintegration.exception.WrongTestScopeExcepti
 public class JenkinsReceiver {
 	
 	private static final Logger LOGGER = Logger.getLogger(JenkinsReceiver.class.getName());
-	private static final int KEY = 0;
-	private static final int VALUE = 1;
+	private static final Pattern PARAMETER_NAME = Pattern.compile("[a-zA-Z_$][\\w]*");
 	// these variables follow the slash command syntax
 	private static final int COMMAND_INDEX = 0;
 	private static final int JOB_PARAMETER_INDEX = 1;
@@ -44,6 +59,9 @@ public class JenkinsReceiver {
 	private static final int P_PARAMETER_INDEX = 2;
 	private static final int SCOPE_PARAMETER_INDEX = 2;
 	private static final int CLASS_PARAMETER_INDEX = 3;
+	private static final int MAXIMUM_BATCH_SIZE = 50;
+	private static final int MAXIMUM_SHARDS = 32;
+	private static final String SHARDS_OPTION = "--shards";
 	
 	/**
 	 * Starts a build for any type of job.
@@ -53,33 +71,221 @@ public class JenkinsReceiver {
 	 */
 	public SlackMessage build(SlackData data) {
 		String message;
-		String text = data.getText();
-		text = text.replaceAll("\\s*=\\s*", "=");
-		String[] commandFields = text.split(" ");
+		CommandLine commandLine = data.getCommandLine();
 		// check if the command syntax is correct
-		if (!parseBuildCommand(commandFields)) {
-			message = Messages.incompleteCommandSyntax(commandFields[COMMAND_INDEX]);
+		if (!parseBuildCommand(commandLine)) {
+			message = Messages.incompleteCommandSyntax(commandLine.getToken(COMMAND_INDEX));
 			LOGGER.log(Level.INFO, message);
 			return new SlackMessage(message, Messages.danger());
 		}
 		
-		String projectName = commandFields[JOB_PARAMETER_INDEX];
-		AbstractProject<?, ?> project = Jenkins.getInstance().getItemByFullName(projectName, AbstractProject.class);
+		String projectName = commandLine.getToken(JOB_PARAMETER_INDEX);
+		AbstractProject<?, ?> project = JobCache.getInstance().getProject(projectName);
 		// check if the project exists
 		if (project == null) {
-			message = Messages.projectNotFound(projectName);
+			// check if the user typed a chain of projects
+			if (projectName.indexOf('>') >= 0 || projectName.indexOf(';') >= 0) {
+				return buildChain(data, commandLine);
+			}
+			// check if the user typed several projects or a pattern
+			if (projectName.indexOf(',') >= 0 || JobCache.isPattern(projectName)) {
+				return buildAll(data, commandLine);
+			}
+			
+			message = getProjectNotFoundMessage(projectName);
 			LOGGER.log(Level.INFO, message);
 			return new SlackMessage(message, Messages.danger());
 		}
 		
-		boolean success;
+		return scheduleBuild(data, project, commandLine);
+	}
+	
+	/**
+	 * Starts a build for each project typed or matching a pattern. The builds are 
+	 * scheduled in parallel on the {@link CommandExecutor} and a single response lists
+	 * the projects scheduled and the ones rejected.
+	 * 
+	 * @param data data sent by Slack
+	 * @param commandLine entered arguments
+	 * @return response to the requested command
+	 */
+	private SlackMessage buildAll(final SlackData data, final CommandLine commandLine) {
+		String message;
+		Set<AbstractProject<?, ?>> projects = new LinkedHashSet<>();
+		List<String> rejected = new ArrayList<>();
+		resolveProjects(commandLine.getItems(JOB_PARAMETER_INDEX), projects, rejected);
+		// check if too many builds would be started by a single command
+		if (projects.size() > MAXIMUM_BATCH_SIZE) {
+			message = Messages.tooManyProjects(projects.size(), MAXIMUM_BATCH_SIZE);
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		
+		final List<AbstractProject<?, ?>> targets = new ArrayList<>(projects);
+		final SlackMessage[] results = new SlackMessage[targets.size()];
+		List<Runnable> tasks = new ArrayList<>(targets.size());
+		for (int i = 0; i < targets.size(); i++) {
+			final int index = i;
+			tasks.add(new Runnable() {
+				@Override
+				public void run() {
+					results[index] = scheduleBuild(data, targets.get(index), commandLine);
+				}
+			});
+		}
+		CommandExecutor.getInstance().runAll(tasks);
+		
+		int scheduled = 0;
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				// the task failed with an unexpected exception
+				results[i] = new SlackMessage(Messages.buildNotScheduled(targets.get(i).getFullName()), 
+						Messages.danger());
+			}
+			if (Messages.good().equals(results[i].getColor())) {
+				scheduled++;
+			}
+			builder.append('\n').append(results[i].getText());
+		}
+		for (String rejection : rejected) {
+			builder.append('\n').append(rejection);
+		}
+		
+		int total = results.length + rejected.size();
+		message = Messages.buildsScheduled(scheduled, total) + builder.toString();
+		LOGGER.log(Level.INFO, message);
+		String color;
+		if (scheduled == total) {
+			color = Messages.good();
+		} else if (scheduled == 0) {
+			color = Messages.danger();
+		} else {
+			color = Messages.warning();
+		}
+		
+		return new SlackMessage(message, color);
+	}
+	
+	/**
+	 * Starts a chain of builds, made of paths separated by a semicolon. Each path 
+	 * contains steps separated by &gt;, and each step contains one or more projects or 
+	 * patterns separated by a comma, that depend on all the projects of the previous 
+	 * step (E.g. lib&gt;app,web;tools&gt;docs). A project is scheduled as soon as the 
+	 * builds of all the projects it depends on succeed. The progress of the chain is 
+	 * sent to the response_url of the request.
+	 * 
+	 * @param data data sent by Slack
+	 * @param commandLine entered arguments
+	 * @return response to the requested command
+	 */
+	private SlackMessage buildChain(SlackData data, CommandLine commandLine) {
+		String message;
+		String response_url = data.getResponse_url();
+		if (response_url == null || response_url.isEmpty()) {
+			message = Messages.invalidResponseUrl();
+			LOGGER.log(Level.SEVERE, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		
+		BuildChain chain = new BuildChain(this, data, commandLine);
+		List<String> rejected = new ArrayList<>();
+		for (String path : commandLine.getToken(JOB_PARAMETER_INDEX).split(";", -1)) {
+			List<AbstractProject<?, ?>> upstreams = Collections.emptyList();
+			for (String step : path.split(">", -1)) {
+				Set<AbstractProject<?, ?>> projects = new LinkedHashSet<>();
+				int numberRejected = rejected.size();
+				resolveProjects(Arrays.asList(step.split(",")), projects, rejected);
+				if (projects.isEmpty() && rejected.size() == numberRejected) {
+					rejected.add(Messages.emptyChainStep(path));
+				}
+				chain.addProjects(upstreams, projects);
+				upstreams = new ArrayList<>(projects);
+			}
+		}
+		// check if all the projects of the chain can be scheduled
+		if (!rejected.isEmpty()) {
+			StringBuilder builder = new StringBuilder(Messages.chainNotStarted());
+			for (String rejection : rejected) {
+				builder.append('\n').append(rejection);
+			}
+			message = builder.toString();
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		// check if too many builds would be started by a single command
+		if (chain.size() > MAXIMUM_BATCH_SIZE) {
+			message = Messages.tooManyProjects(chain.size(), MAXIMUM_BATCH_SIZE);
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		// check if a project depends on itself
+		String cycle = chain.findCycle();
+		if (cycle != null) {
+			message = Messages.chainCycle(cycle);
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		
+		return chain.start();
+	}
+	
+	/**
+	 * Finds the projects typed or matching a pattern.
+	 * 
+	 * @param names names or patterns of the projects
+	 * @param projects projects found
+	 * @param rejected messages for the names that match no project
+	 */
+	private void resolveProjects(List<String> names, Set<AbstractProject<?, ?>> projects, 
+			List<String> rejected) {
+		for (String name : names) {
+			if (name.isEmpty()) {
+				continue;
+			}
+			
+			if (JobCache.isPattern(name)) {
+				List<AbstractProject<?, ?>> matches = JobCache.getInstance().getProjects(name);
+				if (matches.isEmpty()) {
+					rejected.add(Messages.patternNotMatched(name));
+				}
+				projects.addAll(matches);
+			} else {
+				AbstractProject<?, ?> project = JobCache.getInstance().getProject(name);
+				if (project == null) {
+					rejected.add(getProjectNotFoundMessage(name));
+				} else {
+					projects.add(project);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Starts a build for a project, with the parameters entered.
+	 * 
+	 * @param data data sent by Slack
+	 * @param project project to build
+	 * @param commandLine entered arguments
+	 * @param actions additional actions of the build
+	 * @return response to the requested command
+	 */
+	SlackMessage scheduleBuild(SlackData data, AbstractProject<?, ?> project, 
+			CommandLine commandLine, Action... actions) {
+		String message;
+		// the project may have been found by its short name or by a prefix
+		String projectName = project.getFullName();
+		
+		List<ParameterValue> values = Collections.emptyList();
 		String slackUser = data.getUser_name();
 		ACL.impersonate(ACL.SYSTEM);
 		
-		int numberEnteredParameters = commandFields.length - 2 - (commandFields.length - 2) / 2;
+		// each parameter is made of two tokens: -p and key=value
+		int numberEnteredParameters = (commandLine.size() - P_PARAMETER_INDEX) / 2;
 		// check if the project is parameterized
 		if (project.isParameterized()) {
-			int numberExpectedParameters = getNumberJobParameters(project);
+			ProjectParameters definitions = ParameterCache.getInstance().getParameters(project);
+			int numberExpectedParameters = definitions.size();
 			// check if the number of expected parameters is less than 
 			// the entered parameters
 			if (numberExpectedParameters < numberEnteredParameters) {
@@ -88,14 +294,9 @@ public class JenkinsReceiver {
 				return new SlackMessage(message, Messages.danger());
 			}
 			
-			String parameters = ""; 
-			if (numberEnteredParameters > 0) {
-				parameters = text.substring(text.indexOf(commandFields[P_PARAMETER_INDEX]));
-			}
 			try {
-				List<ParameterValue> values = parseBuildParameters(project, parameters);
-				success = project.scheduleBuild(0, new SlackCause(slackUser), 
-						new ParametersAction(values));
+				Map<String, String> parameters = getBuildParameters(data, project, definitions, commandLine);
+				values = createParameterValues(definitions, parameters);
 			} catch (WrongParameterSyntaxException e) {
 				message = Messages.wrongParameterSyntax(e.getMessage(), projectName);
 				LOGGER.log(Level.INFO, message, e);
@@ -104,6 +305,10 @@ public class JenkinsReceiver {
 				message = Messages.invalidParameter(e.getMessage(), projectName);
 				LOGGER.log(Level.INFO, message, e);
 				return new SlackMessage(message, Messages.danger());
+			} catch (InvalidParameterValueException e) {
+				message = Messages.invalidParameterValue(e.getValue(), e.getParameter(), projectName);
+				LOGGER.log(Level.INFO, message, e);
+				return new SlackMessage(message, Messages.danger());
 			}
 		} else {
 			if (numberEnteredParameters != 0) {
@@ -111,7 +316,25 @@ public class JenkinsReceiver {
 				LOGGER.log(Level.INFO, message);
 				return new SlackMessage(message, Messages.danger());
 			}
-			success = project.scheduleBuild(0, new SlackCause(slackUser));
+		}
+		
+		// the builds of a chain must not be merged, otherwise the chain would not be
+		// notified of their completion
+		BuildCoalescingProperty coalescing = project.getProperty(BuildCoalescingProperty.class);
+		if (coalescing != null && actions.length == 0) {
+			SlackMessage joined = joinBuild(coalescing, projectName, values);
+			if (joined != null) {
+				return joined;
+			}
+		}
+		
+		boolean success;
+		if (project.isParameterized()) {
+			Action[] buildActions = Arrays.copyOf(actions, actions.length + 1);
+			buildActions[actions.length] = new ParametersAction(values);
+			success = project.scheduleBuild(0, new SlackCause(slackUser), buildActions);
+		} else {
+			success = project.scheduleBuild(0, new SlackCause(slackUser), actions);
 		}
 		
 		// success indicates that the project has been added to the queue and 
@@ -128,89 +351,176 @@ public class JenkinsReceiver {
         }
 	}
 	
+	/**
+	 * Joins an identical build waiting in the queue or started within the time window
+	 * of the project.
+	 * 
+	 * @param coalescing time window of the project
+	 * @param projectName full name of the project
+	 * @param values parameter values of the requested build
+	 * @return response to the requested command, or null if there is no build to join
+	 */
+	private SlackMessage joinBuild(BuildCoalescingProperty coalescing, String projectName, 
+			List<ParameterValue> values) {
+		String message;
+		if (coalescing.getQueuedBuild(values) != null) {
+			message = Messages.queuedBuildJoined(projectName);
+		} else {
+			AbstractBuild<?, ?> build = coalescing.getStartedBuild(values);
+			if (build == null) {
+				return null;
+			}
+			
+			message = Messages.startedBuildJoined(String.valueOf(build.getNumber()), projectName);
+		}
+		LOGGER.log(Level.INFO, message);
+		
+		return new SlackMessage(message, Messages.good());
+	}
+	
+	/**
+	 * Creates the message for a project that does not exist, suggesting the projects 
+	 * with a similar name.
+	 * 
+	 * @param projectName name of the project entered
+	 * @return message for the project
+	 */
+	private String getProjectNotFoundMessage(String projectName) {
+		List<String> suggestions = JobCache.getInstance().getSuggestions(projectName);
+		if (suggestions.isEmpty()) {
+			return Messages.projectNotFound(projectName);
+		}
+		
+		StringBuilder builder = new StringBuilder();
+		for (String suggestion : suggestions) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(suggestion);
+		}
+		
+		return Messages.projectNotFoundSuggestions(projectName, builder.toString());
+	}
+	
 	/**
 	 * Checks the number of the arguments entered by a Slack user for the 
 	 * command build.
 	 * 
-	 * @param commandFields entered arguments
+	 * @param commandLine entered arguments
 	 * @return true if the number of arguments is greater than one and even,
 	 * otherwise false
 	 */
-	private boolean parseBuildCommand(String[] commandFields) {
-		// at this point commandFields will contain at least one element, 
+	private boolean parseBuildCommand(CommandLine commandLine) {
+		// at this point commandLine will contain at least one token, 
 		// that is the command to execute 
-		return (commandFields.length > 1) && (commandFields.length % 2 == 0);
+		return (commandLine.size() > 1) && (commandLine.size() % 2 == 0);
 	}
 	
 	/**
-	 * Gets the number of parameters defined for the project.
+	 * Gets the entered parameters, validated against the parameters defined for the 
+	 * project. The parameters validated for a {@link CommandPlan} are stored in the 
+	 * plan, so they are validated only once for all the requests that share it.
 	 * 
+	 * @param data data sent by Slack
 	 * @param project project to build
-	 * @return number of parameters
+	 * @param definitions parameters defined for the project
+	 * @param commandLine entered arguments
+	 * @return immutable map from the name of the parameter to its value
+	 * @throws WrongParameterSyntaxException if the parameter syntax is wrong
+	 * @throws InvalidParameterException if the entered parameter does not exist for
+	 * the project or is a duplicate
 	 */
-	private int getNumberJobParameters(AbstractProject<?, ?> project) {
-		ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
-		return property.getParameterDefinitions().size();
+	private Map<String, String> getBuildParameters(SlackData data, AbstractProject<?, ?> project, 
+			ProjectParameters definitions, CommandLine commandLine) throws WrongParameterSyntaxException, InvalidParameterException {
+		CommandPlan plan = data.getCommandPlan();
+		Map<String, String> parameters = (plan != null) ? plan.getParameters(project.getFullName()) : null;
+		if (parameters == null) {
+			parameters = parseBuildParameters(definitions, commandLine);
+			if (plan != null) {
+				plan.setParameters(project.getFullName(), parameters);
+			}
+		}
+		
+		return parameters;
 	}
 
 	/**
-	 * Check the syntax of the entered parameters and creates a list containing the 
-	 * values to use for the build.
+	 * Check the syntax of the entered parameters and checks that they are defined for 
+	 * the project.
 	 * 
-	 * @param project project to build
-	 * @param parameters entered parameters
-	 * @return list of values
+	 * @param definitions parameters defined for the project
+	 * @param commandLine entered arguments
+	 * @return immutable map from the name of the parameter to its value
 	 * @throws WrongParameterSyntaxException if the parameter syntax is wrong
 	 * @throws InvalidParameterException if the entered parameter does not exist for
-	 * the project 
+	 * the project or is a duplicate
 	 */
-	private List<ParameterValue> parseBuildParameters(AbstractProject<?, ?> project, String parameters) 
+	private Map<String, String> parseBuildParameters(ProjectParameters definitions, CommandLine commandLine) 
 			throws WrongParameterSyntaxException, InvalidParameterException {
-		List<ParameterValue> values = new ArrayList<>();
-		ParametersDefinitionProperty property = project.getProperty(ParametersDefinitionProperty.class);
-		// parameterDefinition is non editable
-		List<ParameterDefinition> parameterDefinition = property.getParameterDefinitions();
-		// create an editable list
-		List<ParameterDefinition> definition = new ArrayList<>();;
-		for (ParameterDefinition parameter : parameterDefinition) {
-			definition.add(parameter);
-		}
-		if (!"".equals(parameters)) {
-			String[] array = parameters.split(" ");
-			for (int i = 0; i < array.length; i++) {
-				// check if the syntax of the current parameter is correct
-				if (!("-p".equals(array[i++]) && (array[i].matches("[a-zA-Z_$][\\w]*=\\S+")))) {
-					throw new WrongParameterSyntaxException(array[i-1] + " " + array[i]);
-				}
-				
-				boolean match = false;
-				String key = array[i].split("=")[KEY];
-				// checks if the entered parameter matches to one of the expected parameters
-				for (ParameterDefinition parameter : definition) {
-					if (key.equals(parameter.getName())) {
-						String value = array[i].split("=")[VALUE];
-			    		ParameterizedStaplerRequest request = new ParameterizedStaplerRequest(value);
-			    		values.add(parameter.createValue(request));
-			    		// remove the current parameter to avoid duplicates
-			    		definition.remove(parameter);
-			    		match = true;
-			    		break;
-					}
-				}
-				if (!match) {
-					throw new InvalidParameterException(key);
-				}
+		BitSet entered = new BitSet(definitions.size());
+		Map<String, String> parameters = new LinkedHashMap<>();
+		for (int i = P_PARAMETER_INDEX; i < commandLine.size(); i++) {
+			// check if the syntax of the current parameter is correct
+			if (!(commandLine.isToken(i++, "-p") && isParameter(commandLine, i))) {
+				throw new WrongParameterSyntaxException(commandLine.getRaw(i-1) + " " 
+						+ commandLine.getRaw(i));
+			}
+			
+			String key = commandLine.getKey(i);
+			int index = definitions.indexOf(key);
+			// checks if the entered parameter matches to one of the expected parameters 
+			// and has not been entered yet
+			if (index < 0 || entered.get(index)) {
+				throw new InvalidParameterException(key);
 			}
+			entered.set(index);
+			parameters.put(key, commandLine.getValue(i));
 		}
 		
-		if (!definition.isEmpty()) {
-			// add default values for the missing parameters
-			for (ParameterDefinition parameter : definition) {
-				values.add(parameter.getDefaultParameterValue());
+		return Collections.unmodifiableMap(parameters);
+	}
+	
+	/**
+	 * Creates a list containing the values to use for the build.
+	 * 
+	 * @param definitions parameters defined for the project
+	 * @param parameters entered parameters
+	 * @return list of values
+	 * @throws InvalidParameterValueException if an entered value is not valid for its
+	 * parameter
+	 */
+	private List<ParameterValue> createParameterValues(ProjectParameters definitions, 
+			Map<String, String> parameters) throws InvalidParameterValueException {
+		ParameterValue[] values = new ParameterValue[definitions.size()];
+		BitSet entered = new BitSet(values.length);
+		for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+			int index = definitions.indexOf(parameter.getKey());
+			try {
+				values[index] = definitions.createValue(index, parameter.getValue());
+			} catch (IllegalArgumentException e) {
+				throw new InvalidParameterValueException(parameter.getKey(), parameter.getValue(), e);
 			}
+			entered.set(index);
+		}
+		// add default values for the missing parameters
+		for (int i = entered.nextClearBit(0); i < values.length; i = entered.nextClearBit(i + 1)) {
+			values[i] = definitions.getDefaultValue(i);
 		}
 		
-		return values;
+		return Arrays.asList(values);
+	}
+	
+	/**
+	 * Checks if a token is a parameter in the key=value format, where the key is a 
+	 * valid parameter name and the value is not empty.
+	 * 
+	 * @param commandLine entered arguments
+	 * @param index index of the token
+	 * @return true if the syntax of the parameter is correct, otherwise false
+	 */
+	private boolean isParameter(CommandLine commandLine, int index) {
+		return commandLine.isPair(index) && !commandLine.getValue(index).isEmpty() 
+				&& PARAMETER_NAME.matcher(commandLine.getKey(index)).matches();
 	}
 
 	/**
@@ -221,25 +531,25 @@ public class JenkinsReceiver {
 	 */
 	public SlackMessage test(SlackData data) {
 		String message = null;
-		String text = data.getText();
-		text = text.replaceAll("\\s*,\\s*", ",");
-		String[] commandFields = text.split(" ");
-		// at this point commandFields will contain at least one element, 
+		CommandLine commandLine = data.getCommandLine();
+		// at this point commandLine will contain at least one token, 
 		// that is the command to execute
-		if (commandFields.length < 3) {
-			message = Messages.incompleteCommandSyntax(commandFields[COMMAND_INDEX]);
+		if (commandLine.size() < 3) {
+			message = Messages.incompleteCommandSyntax(commandLine.getToken(COMMAND_INDEX));
 			LOGGER.log(Level.INFO, message);
 			return new SlackMessage(message, Messages.danger());
 		}
 		
-		String projectName = commandFields[JOB_PARAMETER_INDEX];
-		AbstractProject<?, ?> project = Jenkins.getInstance().getItemByFullName(projectName, AbstractProject.class);
+		String projectName = commandLine.getToken(JOB_PARAMETER_INDEX);
+		AbstractProject<?, ?> project = JobCache.getInstance().getProject(projectName);
 		// check if the project exists
 		if (project == null) {
-			message = Messages.projectNotFound(projectName);
+			message = getProjectNotFoundMessage(projectName);
 			LOGGER.log(Level.INFO, message);
 			return new SlackMessage(message, Messages.danger());
 		}
+		// the project may have been found by its short name or by a prefix
+		projectName = project.getFullName();
 		
 		// check if the project is a Maven Project
 		if (!(project instanceof AbstractMavenProject)) {
@@ -248,11 +558,29 @@ public class JenkinsReceiver {
 			return new SlackMessage(message, Messages.danger());
 		}
 		
+		// the shards option is made of the last two tokens: --shards and its number
+		int numberArguments = commandLine.size();
+		int numberShards = 1;
+		if (numberArguments > 4 && commandLine.isToken(numberArguments - 2, SHARDS_OPTION)) {
+			String shards = commandLine.getToken(numberArguments - 1);
+			numberShards = parseShards(shards);
+			if (numberShards < 2) {
+				message = Messages.invalidShards(shards, MAXIMUM_SHARDS);
+				LOGGER.log(Level.INFO, message);
+				return new SlackMessage(message, Messages.danger());
+			}
+			numberArguments -= 2;
+		}
+		
 		boolean error;
 		try {
-			error = parseTestCommand(commandFields);
+			error = parseTestCommand(commandLine, numberArguments);
+			// only all the tests can be split into shards
+			if (numberShards > 1 && !commandLine.isToken(SCOPE_PARAMETER_INDEX, "all")) {
+				error = true;
+			}
 			if (error) {
-				message = Messages.wrongCommandSyntax(commandFields[COMMAND_INDEX], projectName);
+				message = Messages.wrongCommandSyntax(commandLine.getToken(COMMAND_INDEX), projectName);
 				LOGGER.log(Level.INFO, message);
 				return new SlackMessage(message, Messages.danger());
 			}
@@ -272,52 +600,164 @@ public class JenkinsReceiver {
 		String slackUser = data.getUser_name();
 		ACL.impersonate(ACL.SYSTEM);
 		MavenModuleSet maven = (MavenModuleSet) project;
-		String goals = maven.getGoals();
-		maven.setGoals("test");
-		String testScope = commandFields[SCOPE_PARAMETER_INDEX];
-		String mavenOpts = null;
-		if ("class".equals(testScope)) {
-			mavenOpts = maven.getMavenOpts();
-			String className = commandFields[CLASS_PARAMETER_INDEX];
-			maven.setMavenOpts("-Dtest=" + className);
+		if (numberShards > 1) {
+			return testShards(maven, numberShards, slackUser, response_url);
 		}
 		
-		String color = null;
-		try {
-			maven.scheduleBuild2(0, new SlackCause(slackUser)).get();
-			LOGGER.log(Level.INFO, Messages.testPerformed(projectName));
-		} catch (InterruptedException | ExecutionException e) {
-			message = Messages.testNotPerformed(projectName);
-			color = Messages.danger();
-        	LOGGER.log(Level.INFO, message, e);
+		String filter = null;
+		if (commandLine.isToken(SCOPE_PARAMETER_INDEX, "class")) {
+			List<String> selectors = new ArrayList<>();
+			for (String selector : commandLine.getItems(CLASS_PARAMETER_INDEX)) {
+				// check if the selector can be turned into a surefire filter
+				if (!TestIndex.isSelector(selector)) {
+					message = Messages.invalidTestSelector(selector);
+					LOGGER.log(Level.INFO, message);
+					return new SlackMessage(message, Messages.danger());
+				}
+				selectors.add(selector);
+			}
+			
+			// the selectors are checked only if the tests of the project are known
+			TestIndex index = TestIndex.get(maven.getLastCompletedBuild());
+			List<String> unknown = (index != null) ? index.findUnknown(selectors) 
+					: Collections.<String>emptyList();
+			if (!unknown.isEmpty()) {
+				message = Messages.unknownTests(joinItems(unknown), projectName, 
+						String.valueOf(maven.getLastCompletedBuild().getNumber()));
+				LOGGER.log(Level.INFO, message);
+				return new SlackMessage(message, Messages.danger());
+			}
+			filter = joinItems(selectors);
+		} else if (commandLine.isToken(SCOPE_PARAMETER_INDEX, "failed")) {
+			MavenModuleSetBuild lastBuild = maven.getLastCompletedBuild();
+			// check if the last build has test results
+			if (TestResults.getResults(lastBuild).isEmpty()) {
+				message = Messages.failedTestsUnknown(projectName);
+				LOGGER.log(Level.INFO, message);
+				return new SlackMessage(message, Messages.danger());
+			}
+			
+			Map<String, Set<String>> failedTests = TestResults.getFailedTests(lastBuild);
+			if (failedTests.isEmpty()) {
+				message = Messages.noFailedTests(projectName, String.valueOf(lastBuild.getNumber()));
+				LOGGER.log(Level.INFO, message);
+				return new SlackMessage(message, Messages.good());
+			}
+			filter = TestResults.toFilter(failedTests);
 		}
 		
-		restoreDefaultSettings(maven, goals, mavenOpts);
+		String goals = "test";
+		if (filter != null) {
+			// the modules that do not contain the tests must not fail
+			goals = goals + " -Dtest=" + filter + " -DfailIfNoTests=false";
+		}
 		
-		// Slack Plugin will notify the result of the build
-		return new SlackMessage(message, color);
+		// the goals are set only for this build, and the result is sent to Slack by 
+		// SlackResponseListener when the build completes
+		if (maven.scheduleBuild2(0, new SlackCause(slackUser), new TestGoalsAction(goals), 
+				new SlackResponseAction(response_url)) == null) {
+			message = Messages.testNotPerformed(projectName);
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		
+		message = Messages.testScheduled(projectName);
+		LOGGER.log(Level.INFO, message);
+		return new SlackMessage(message, Messages.good());
 	}
 
+	/**
+	 * Performs the tests of a maven job in shards, that are concurrent builds each 
+	 * testing a group of classes with a similar duration. The classes and their 
+	 * durations are taken from the last completed build.
+	 * 
+	 * @param maven maven project to test
+	 * @param numberShards number of shards
+	 * @param slackUser username of the Slack user
+	 * @param response_url response_url of the request
+	 * @return response to the requested command
+	 */
+	private SlackMessage testShards(MavenModuleSet maven, int numberShards, String slackUser, 
+			String response_url) {
+		String message;
+		String projectName = maven.getFullName();
+		MavenModuleSetBuild lastBuild = maven.getLastCompletedBuild();
+		List<List<String>> groups = TestShards.split(lastBuild, numberShards);
+		// check if there are classes to split
+		if (groups.isEmpty()) {
+			message = Messages.noTestResults(projectName);
+			LOGGER.log(Level.INFO, message);
+			return new SlackMessage(message, Messages.danger());
+		}
+		
+		// the summary is sent to Slack when all the shards have completed
+		TestShards shards = new TestShards(response_url, projectName, groups.size());
+		StringBuilder builder = new StringBuilder(Messages.testsSharded(projectName, groups.size(), 
+				String.valueOf(lastBuild.getNumber())));
+		List<String> filters = TestShards.getFilters(groups);
+		for (int i = 0; i < groups.size(); i++) {
+			String goals = "test";
+			if (filters.get(i) != null) {
+				goals = goals + " -Dtest=" + filters.get(i) + " -DfailIfNoTests=false";
+			}
+			if (maven.scheduleBuild2(0, new SlackCause(slackUser), new TestGoalsAction(goals), 
+					new TestShardAction(shards.getId(), i + 1)) == null) {
+				TestShards.completed(shards.getId(), i + 1, null);
+				builder.append('\n').append(Messages.shardNotScheduled(i + 1));
+			}
+		}
+		if (!maven.isConcurrentBuild()) {
+			builder.append('\n').append(Messages.shardsNotConcurrent(projectName));
+		}
+		message = builder.toString();
+		LOGGER.log(Level.INFO, message);
+		
+		return new SlackMessage(message, Messages.good());
+	}
+	
+	/**
+	 * Parses the number of shards entered by a Slack user.
+	 * 
+	 * @param shards number of shards entered
+	 * @return number of shards, or 0 if it is not a number between 2 and the maximum
+	 */
+	private int parseShards(String shards) {
+		try {
+			int numberShards = Integer.parseInt(shards);
+			return (numberShards >= 2 && numberShards <= MAXIMUM_SHARDS) ? numberShards : 0;
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+	
 	/**
 	 * Checks the number of the arguments entered by a Slack user for the 
 	 * command test and its scope.
 	 * 
-	 * @param commandFields entered arguments
+	 * @param commandLine entered arguments
+	 * @param numberArguments number of arguments, excluding the options
 	 * @return true if the number of arguments is correct, otherwise false
 	 * @throws WrongTestScopeException if the entered scope does not exist
 	 */
-	private boolean parseTestCommand(String[] commandFields) throws WrongTestScopeException {
+	private boolean parseTestCommand(CommandLine commandLine, int numberArguments) 
+			throws WrongTestScopeException {
 		boolean error = true;
-		String testScope = commandFields[SCOPE_PARAMETER_INDEX];
+		String testScope = commandLine.getToken(SCOPE_PARAMETER_INDEX);
 		switch (testScope) {
 		case "all":
-			if (commandFields.length == 3) {
+			if (numberArguments == 3) {
 				error = false;
 			}
 			break;
 			
 		case "class":
-			if (commandFields.length == 4) {
+			if (numberArguments == 4) {
+				error = false;
+			}
+			break;
+			
+		case "failed":
+			if (numberArguments == 3) {
 				error = false;
 			}
 			break;
@@ -330,15 +770,21 @@ public class JenkinsReceiver {
 	}
 	
 	/**
-	 * Restores the default setting for the maven project tested.
+	 * Joins the items of a list with commas.
 	 * 
-	 * @param maven maven project tested
-	 * @param goals maven goals
-	 * @param mavenOpts maven options
+	 * @param items items to join
+	 * @return comma separated items
 	 */
-	private void restoreDefaultSettings(MavenModuleSet maven, String goals, String mavenOpts) {
-		maven.setGoals(goals);
-		maven.setMavenOpts(mavenOpts);
+	private String joinItems(List<String> items) {
+		StringBuilder builder = new StringBuilder();
+		for (String item : items) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(item);
+		}
+		
+		return builder.toString();
 	}
 	
 	/**
@@ -349,10 +795,9 @@ public class JenkinsReceiver {
 	 */
 	public SlackMessage listJobs(SlackData data) {
 		String message;
-		String text = data.getText();
-		String[] commandFields = text.split(" ");
-		if (commandFields.length > 1) {
-			message = Messages.tooManyArguments(commandFields[COMMAND_INDEX]);
+		CommandLine commandLine = data.getCommandLine();
+		if (commandLine.size() > 1) {
+			message = Messages.tooManyArguments(commandLine.getToken(COMMAND_INDEX));
 			LOGGER.log(Level.SEVERE, message);
 			return new SlackMessage(message, Messages.danger());
 		}
@@ -396,16 +841,15 @@ public class JenkinsReceiver {
 	 * @return response to the requested command
 	 */
 	public SlackMessage help(SlackData data) {
-		String text = data.getText();
-		String[] commandFields = text.split(" ");
+		CommandLine commandLine = data.getCommandLine();
 		String message;
-		switch (commandFields.length) {
+		switch (commandLine.size()) {
 		case 1:
 			message = Messages.help();
 			break;
 			
 		case 2:
-			String command = commandFields[COMMAND_PARAMETER_INDEX];
+			String command = commandLine.getToken(COMMAND_PARAMETER_INDEX);
 			try {
 				message = helpCommand(command);
 			} catch (InvalidParameterException e) {
@@ -416,7 +860,7 @@ public class JenkinsReceiver {
 			break;
 
 		default:
-			message = Messages.tooManyArguments(commandFields[COMMAND_INDEX]);
+			message = Messages.tooManyArguments(commandLine.getToken(COMMAND_INDEX));
 			LOGGER.log(Level.INFO, message);
 			return new SlackMessage(message, Messages.danger());
 		}
@@ -0,0 +1,178 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.ChoiceParameterDefinition;
+import hudson.model.FileParameterDefinition;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParameterValue;
+import hudson.model.SimpleParameterDefinition;
+import hudson.model.StringParameterValue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class that converts the values entered by a Slack user into {@link ParameterValue}s.
+ * <p>
+ * Each type of parameter definition has its own converter, chosen once for each
+ * {@link ParameterDefinition} class: string, text, boolean, password and run
+ * parameters are created from a string, choices are checked with a hash set and files
+ * are rejected. Only the types of other plugins that cannot be created from a string
+ * are converted through a {@link ParameterizedStaplerRequest}.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public final class ParameterValueFactory {
+
+	private static final ConcurrentMap<Class<?>, ConverterType> TYPES = new ConcurrentHashMap<>();
+
+	/**
+	 * Converter of the values of a parameter definition.
+	 */
+	public interface Converter {
+
+		/**
+		 * Creates the value of the parameter.
+		 *
+		 * @param value value entered by the user
+		 * @return value of the parameter
+		 * @throws IllegalArgumentException if the value is not valid for the parameter
+		 */
+		ParameterValue createValue(String value);
+
+	}
+
+	/**
+	 * Type of converter, that creates the converter of a parameter definition.
+	 */
+	private interface ConverterType {
+
+		/**
+		 * Creates the converter of a parameter definition.
+		 *
+		 * @param definition parameter definition
+		 * @return converter of the definition
+		 */
+		Converter bind(ParameterDefinition definition);
+
+	}
+
+	/**
+	 * Converter of the definitions that create their values from a string.
+	 */
+	private static final ConverterType SIMPLE = new ConverterType() {
+		@Override
+		public Converter bind(ParameterDefinition definition) {
+			final SimpleParameterDefinition simple = (SimpleParameterDefinition) definition;
+			return new Converter() {
+				@Override
+				public ParameterValue createValue(String value) {
+					return simple.createValue(value);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Converter of the choice parameters, that checks the value with a hash set of the
+	 * choices instead of scanning them.
+	 */
+	private static final ConverterType CHOICE = new ConverterType() {
+		@Override
+		public Converter bind(ParameterDefinition definition) {
+			final String name = definition.getName();
+			final String description = definition.getDescription();
+			final Set<String> choices = new HashSet<>(((ChoiceParameterDefinition) definition).getChoices());
+			return new Converter() {
+				@Override
+				public ParameterValue createValue(String value) {
+					if (!choices.contains(value)) {
+						throw new IllegalArgumentException(value);
+					}
+
+					return new StringParameterValue(name, value, description);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Converter of the file parameters, whose content cannot be sent with a slash
+	 * command.
+	 */
+	private static final ConverterType FILE = new ConverterType() {
+		@Override
+		public Converter bind(ParameterDefinition definition) {
+			return new Converter() {
+				@Override
+				public ParameterValue createValue(String value) {
+					throw new IllegalArgumentException(value);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Converter of the unknown parameter types, that read their value from a request.
+	 */
+	private static final ConverterType REQUEST = new ConverterType() {
+		@Override
+		public Converter bind(final ParameterDefinition definition) {
+			return new Converter() {
+				@Override
+				public ParameterValue createValue(String value) {
+					return definition.createValue(new ParameterizedStaplerRequest(value));
+				}
+			};
+		}
+	};
+
+	/**
+	 * Prevents the instantiation of the class.
+	 */
+	private ParameterValueFactory() {
+	}
+
+	/**
+	 * Gets the converter of a parameter definition.
+	 *
+	 * @param definition parameter definition
+	 * @return converter of the definition
+	 */
+	public static Converter getConverter(ParameterDefinition definition) {
+		Class<?> type = definition.getClass();
+		ConverterType converterType = TYPES.get(type);
+		if (converterType == null) {
+			converterType = getConverterType(type);
+			TYPES.putIfAbsent(type, converterType);
+		}
+
+		return converterType.bind(definition);
+	}
+
+	/**
+	 * Chooses the converter of a parameter definition class.
+	 *
+	 * @param type parameter definition class
+	 * @return type of converter
+	 */
+	private static ConverterType getConverterType(Class<?> type) {
+		// a subclass may check its value differently
+		if (type == ChoiceParameterDefinition.class) {
+			return CHOICE;
+		}
+		// the string and boolean parameters, and the ones of the other plugins that 
+		// follow the same contract, create their values from a string as in the CLI
+		if (SimpleParameterDefinition.class.isAssignableFrom(type)) {
+			return SIMPLE;
+		}
+		if (FileParameterDefinition.class.isAssignableFrom(type)) {
+			return FILE;
+		}
+
+		return REQUEST;
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.Action;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.model.queue.FoldableAction;
+
+import java.util.List;
+
+/**
+ * Class that stores in a build the response_url of the Slack request that started it,
+ * so that {@link SlackResponseListener} can send the result of the build when it 
+ * completes, together with the {@link TestReport} of its modules.
+ * <p>
+ * If the request is merged with a build already in the queue, the action is added to 
+ * that build and all the requests receive its result. The fields are not saved with 
+ * the build, because they are useless once the build has completed.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class SlackResponseAction extends InvisibleAction implements FoldableAction {
+
+	private final transient String responseUrl;
+	private final transient TestReport report = new TestReport();
+
+	/**
+	 * Stores the response_url of the request.
+	 *
+	 * @param responseUrl response_url of the request
+	 */
+	public SlackResponseAction(String responseUrl) {
+		this.responseUrl = responseUrl;
+	}
+
+	/**
+	 * Gets the response_url of the request.
+	 *
+	 * @return response_url, or null if the build was loaded from disk
+	 */
+	public String getResponseUrl() {
+		return this.responseUrl;
+	}
+
+	/**
+	 * Gets the summary of the test reports of the build.
+	 *
+	 * @return summary of the test reports, or null if the build was loaded from disk
+	 */
+	public TestReport getReport() {
+		return this.report;
+	}
+
+	@Override
+	public void foldIntoExisting(Queue.Item item, Queue.Task owner, List<Action> otherActions) {
+		item.addAction(this);
+	}
+
+}
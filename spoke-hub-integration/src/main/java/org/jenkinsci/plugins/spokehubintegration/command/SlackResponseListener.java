@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.Extension;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.util.Timer;
+
+import org.jenkinsci.plugins.spokehubintegration.JSONResponse;
+import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Class that extends {@link RunListener} class and sends the result of the builds 
+ * started by the test command to the response_url of their requests, so that no 
+ * thread waits for the builds. The result is followed by the {@link TestReport} of 
+ * the build, to which {@link TestReportReporter} adds the reports of each module as 
+ * soon as its tests complete. The requests of a build cancelled in the queue are 
+ * notified by {@link CancelledBuildListener}.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class SlackResponseListener extends RunListener<Run<?, ?>> {
+
+	private static final Logger LOGGER = Logger.getLogger(SlackResponseListener.class.getName());
+
+	@Override
+	public void onCompleted(Run<?, ?> run, TaskListener listener) {
+		List<SlackResponseAction> actions = run.getActions(SlackResponseAction.class);
+		// check if the build was started by the test command
+		if (actions.isEmpty()) {
+			return;
+		}
+
+		String projectName = run.getParent().getFullName();
+		Result result = run.getResult();
+		String message = Messages.testPerformed(projectName, String.valueOf(run.getNumber()), result);
+		LOGGER.log(Level.INFO, message);
+		TestReport report = actions.get(0).getReport();
+		if (report != null) {
+			message = message + report.getSummary();
+		}
+		String color;
+		if (result == Result.SUCCESS) {
+			color = Messages.good();
+		} else if (result == Result.UNSTABLE) {
+			// some tests failed
+			color = Messages.warning();
+		} else {
+			color = Messages.danger();
+		}
+		send(new SlackMessage(message, color), actions);
+	}
+
+	/**
+	 * Tells the requests of a build cancelled in the queue that the tests have not been
+	 * performed.
+	 *
+	 * @param projectName full name of the project
+	 * @param actions actions of the requests of the build
+	 */
+	static void cancelled(String projectName, List<SlackResponseAction> actions) {
+		String message = Messages.testCancelled(projectName);
+		LOGGER.log(Level.INFO, message);
+		send(new SlackMessage(message, Messages.danger()), actions);
+	}
+
+	/**
+	 * Sends a message to the response_url of the requests of a build.
+	 *
+	 * @param response message to send
+	 * @param actions actions of the requests of the build
+	 */
+	private static void send(final SlackMessage response, final List<SlackResponseAction> actions) {
+		// Slack is not contacted by the thread that completes or cancels the build
+		Timer.get().submit(new Runnable() {
+			@Override
+			public void run() {
+				for (SlackResponseAction action : actions) {
+					if (action.getResponseUrl() != null) {
+						new JSONResponse(response, StaplerResponse.SC_OK).sendResponse(action.getResponseUrl());
+					}
+				}
+			}
+		});
+	}
+
+}
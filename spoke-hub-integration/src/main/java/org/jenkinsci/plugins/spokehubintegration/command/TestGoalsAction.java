@@ -0,0 +1,61 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.maven.MavenArgumentInterceptorAction;
+import hudson.maven.MavenModuleSetBuild;
+import hudson.model.Action;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.util.ArgumentListBuilder;
+
+import java.util.List;
+
+/**
+ * Class that replaces the goals of a single maven build with the goals of the test
+ * command, without changing the configuration of the project.
+ * <p>
+ * As the goals belong to the build, any number of test builds with different scopes 
+ * can be queued on the same project. Two builds are merged in the queue only if they
+ * have the same goals. The goals also define the {@value #REPORT_PROPERTY} property, 
+ * so that {@link TestReportReporter} recognizes the builds of the test command in the
+ * maven process without asking Jenkins.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class TestGoalsAction extends InvisibleAction implements MavenArgumentInterceptorAction, 
+		Queue.QueueAction {
+
+	static final String REPORT_PROPERTY = "spokeHubIntegration.testReport";
+	private final String goals;
+
+	/**
+	 * Stores the goals of the build.
+	 *
+	 * @param goals maven goals and options of the build
+	 */
+	public TestGoalsAction(String goals) {
+		this.goals = goals;
+	}
+
+	@Override
+	public String getGoalsAndOptions(MavenModuleSetBuild build) {
+		return this.goals + " -D" + REPORT_PROPERTY + "=true";
+	}
+
+	@Override
+	public ArgumentListBuilder intercept(ArgumentListBuilder mavenargs, MavenModuleSetBuild build) {
+		return mavenargs;
+	}
+
+	@Override
+	public boolean shouldSchedule(List<Action> actions) {
+		for (Action action : actions) {
+			if (action instanceof TestGoalsAction && this.goals.equals(((TestGoalsAction) action).goals)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
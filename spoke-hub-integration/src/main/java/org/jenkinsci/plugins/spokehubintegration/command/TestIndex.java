@@ -0,0 +1,228 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.maven.MavenModuleSetBuild;
+import hudson.tasks.junit.CaseResult;
+import hudson.tasks.junit.ClassResult;
+import hudson.tasks.junit.PackageResult;
+import hudson.tasks.junit.TestResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Class that indexes the test classes and methods of the last build of a maven 
+ * project, to validate the tests selected by the test command before starting a 
+ * build.
+ * <p>
+ * A selector is a simple or qualified class name, optionally followed by # and a 
+ * list of methods separated by +, and both the classes and the methods can contain 
+ * the * and ? wildcards (E.g. Parser*Test#testEmpty+testNull). A qualified name is 
+ * matched against the full names of the classes, a simple name against their simple
+ * names. Each selector is compiled once, and the indexes of the most recently tested 
+ * projects are cached until a new build completes.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+final class TestIndex {
+
+	private static final long MAXIMUM_PROJECTS = 100;
+	private static final Pattern SELECTOR = Pattern.compile("[\\w$*?.]+(#[\\w$*?]+(\\+[\\w$*?]+)*)?");
+	private static final Cache<String, TestIndex> INDEXES = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_PROJECTS)
+			.build();
+	private final int number;
+	private final long startTime;
+	// from the full name of the class to the names of its methods
+	private final Map<String, Set<String>> tests = new HashMap<>();
+
+	/**
+	 * Selector compiled into regular expressions.
+	 */
+	private static final class Selector {
+
+		private final boolean qualified;
+		private final Pattern className;
+		// empty if the selector contains no methods
+		private final List<Pattern> methods = new ArrayList<>();
+
+		/**
+		 * Compiles a selector.
+		 *
+		 * @param selector selector with a correct syntax
+		 */
+		private Selector(String selector) {
+			int hash = selector.indexOf('#');
+			String className = (hash < 0) ? selector : selector.substring(0, hash);
+			this.qualified = className.indexOf('.') >= 0;
+			this.className = toRegex(className);
+			if (hash >= 0) {
+				for (String method : selector.substring(hash + 1).split("\\+")) {
+					this.methods.add(toRegex(method));
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Indexes the test results of a build.
+	 *
+	 * @param build maven build
+	 */
+	private TestIndex(MavenModuleSetBuild build) {
+		this.number = build.getNumber();
+		this.startTime = build.getStartTimeInMillis();
+		for (TestResult result : TestResults.getResults(build)) {
+			for (PackageResult packageResult : result.getChildren()) {
+				for (ClassResult classResult : packageResult.getChildren()) {
+					String name = classResult.getFullName();
+					Set<String> methods = this.tests.get(name);
+					if (methods == null) {
+						methods = new HashSet<>();
+						this.tests.put(name, methods);
+					}
+					for (CaseResult caseResult : classResult.getChildren()) {
+						methods.add(TestResults.getMethodName(caseResult.getName()));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of a build, creating it if the project has been built since the 
+	 * last index was created.
+	 *
+	 * @param build maven build, or null
+	 * @return index of the build, or null if the build has no test results
+	 */
+	static TestIndex get(MavenModuleSetBuild build) {
+		if (build == null || TestResults.getResults(build).isEmpty()) {
+			return null;
+		}
+
+		String fullName = build.getParent().getFullName();
+		TestIndex index = INDEXES.getIfPresent(fullName);
+		if (index == null || index.number != build.getNumber() 
+				|| index.startTime != build.getStartTimeInMillis()) {
+			index = new TestIndex(build);
+			INDEXES.put(fullName, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Checks the syntax of a selector.
+	 *
+	 * @param selector selector of tests
+	 * @return true if the syntax is correct, otherwise false
+	 */
+	static boolean isSelector(String selector) {
+		return SELECTOR.matcher(selector).matches();
+	}
+
+	/**
+	 * Finds the selectors that do not match any test of the index.
+	 *
+	 * @param selectors selectors with a correct syntax
+	 * @return selectors that match no test
+	 */
+	List<String> findUnknown(List<String> selectors) {
+		List<String> unknown = new ArrayList<>();
+		for (String selector : selectors) {
+			if (!matches(new Selector(selector))) {
+				unknown.add(selector);
+			}
+		}
+
+		return unknown;
+	}
+
+	/**
+	 * Checks if a selector matches a class of the index and, if it contains methods,
+	 * if each of them matches a method of the classes.
+	 *
+	 * @param selector compiled selector
+	 * @return true if the selector matches, otherwise false
+	 */
+	private boolean matches(Selector selector) {
+		List<Set<String>> classes = new ArrayList<>();
+		for (Map.Entry<String, Set<String>> test : this.tests.entrySet()) {
+			String name = selector.qualified ? test.getKey() : TestResults.getSimpleName(test.getKey());
+			if (selector.className.matcher(name).matches()) {
+				classes.add(test.getValue());
+			}
+		}
+		if (classes.isEmpty()) {
+			return false;
+		}
+
+		for (Pattern method : selector.methods) {
+			if (!matchesMethod(classes, method)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks if a method pattern matches a method of some classes.
+	 *
+	 * @param classes methods of the classes
+	 * @param method compiled pattern of the method
+	 * @return true if the pattern matches, otherwise false
+	 */
+	private static boolean matchesMethod(List<Set<String>> classes, Pattern method) {
+		for (Set<String> methods : classes) {
+			for (String name : methods) {
+				if (method.matcher(name).matches()) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Converts a pattern of names into a regular expression, quoting the text between
+	 * the wildcards. The * wildcard matches any sequence of characters and the ? 
+	 * wildcard matches any character.
+	 *
+	 * @param pattern pattern of the names
+	 * @return regular expression
+	 */
+	static Pattern toRegex(String pattern) {
+		StringBuilder regex = new StringBuilder();
+		int start = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c != '*' && c != '?') {
+				continue;
+			}
+
+			if (i > start) {
+				regex.append(Pattern.quote(pattern.substring(start, i)));
+			}
+			regex.append((c == '*') ? ".*" : ".");
+			start = i + 1;
+		}
+		if (start < pattern.length()) {
+			regex.append(Pattern.quote(pattern.substring(start)));
+		}
+
+		return Pattern.compile(regex.toString());
+	}
+
+}
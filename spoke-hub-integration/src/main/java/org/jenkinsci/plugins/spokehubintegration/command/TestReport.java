@@ -0,0 +1,376 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Class that summarizes the surefire reports of a maven build: the totals, the
+ * failures with their first stack frame and the slowest classes.
+ * <p>
+ * The reports of each module are parsed with a streaming parser by
+ * {@link TestReportReporter} as soon as the tests of the module complete, and only the
+ * totals, a bounded number of failures and the slowest classes are kept, so that the
+ * memory used does not depend on the number of test cases. The summaries of the
+ * modules are sent to Jenkins and merged into the one of the build.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+final class TestReport implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOGGER = Logger.getLogger(TestReport.class.getName());
+	private static final String REPORTS_PREFIX = "TEST-";
+	private static final String REPORTS_SUFFIX = ".xml";
+	private static final int MAXIMUM_FAILURES = 10;
+	private static final int MAXIMUM_CLASSES = 5;
+	// only the beginning of a stack trace is read to find its first frame
+	private static final int MAXIMUM_TRACE_LENGTH = 8192;
+	// the factory is not serializable, and is created where the reports are parsed
+	private static volatile XMLInputFactory factory;
+	// the following fields are guarded by this
+	private int classes;
+	private int tests;
+	private int failures;
+	private int errors;
+	private int skipped;
+	private final List<Failure> failedTests = new ArrayList<>();
+	// the fastest of the slowest classes is the head
+	private final PriorityQueue<ClassDuration> slowestClasses = new PriorityQueue<>(MAXIMUM_CLASSES + 1,
+			new DurationOrder());
+
+	/**
+	 * Failed test with the first frame of its stack trace.
+	 */
+	private static final class Failure implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+		private final String test;
+		private final String frame;
+
+		/**
+		 * Stores a failed test.
+		 *
+		 * @param test test in the format of the selectors of the test command
+		 * @param frame first frame of the stack trace
+		 */
+		private Failure(String test, String frame) {
+			this.test = test;
+			this.frame = frame;
+		}
+
+	}
+
+	/**
+	 * Duration of a test class.
+	 */
+	private static final class ClassDuration implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+		private final String name;
+		private final double duration;
+
+		/**
+		 * Stores the duration of a class.
+		 *
+		 * @param name simple name of the class
+		 * @param duration duration in seconds
+		 */
+		private ClassDuration(String name, double duration) {
+			this.name = name;
+			this.duration = duration;
+		}
+
+	}
+
+	/**
+	 * Order of the classes from the fastest to the slowest.
+	 */
+	private static final class DurationOrder implements Comparator<ClassDuration>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int compare(ClassDuration a, ClassDuration b) {
+			return Double.compare(a.duration, b.duration);
+		}
+
+	}
+
+	/**
+	 * Gets the factory of the parsers, that does not resolve the external entities of
+	 * the reports.
+	 *
+	 * @return factory of the parsers
+	 */
+	private static XMLInputFactory getFactory() {
+		XMLInputFactory factory = TestReport.factory;
+		if (factory == null) {
+			factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+			TestReport.factory = factory;
+		}
+
+		return factory;
+	}
+
+	/**
+	 * Adds the reports of a directory written since the build started. The reports
+	 * left by the previous builds are skipped, as the test goals do not clean the
+	 * module.
+	 *
+	 * @param directory reports directory of the module
+	 * @param buildTime time the build started, in milliseconds
+	 */
+	void addReports(File directory, final long buildTime) {
+		File[] files = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(REPORTS_PREFIX) && name.endsWith(REPORTS_SUFFIX);
+			}
+		});
+		if (files == null) {
+			return;
+		}
+
+		for (File file : files) {
+			if (file.lastModified() < buildTime) {
+				continue;
+			}
+
+			try (InputStream in = new FileInputStream(file)) {
+				parse(in);
+			} catch (IOException | XMLStreamException e) {
+				// a damaged report does not prevent the summary of the others
+				LOGGER.log(Level.WARNING, file.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Parses a surefire report, that contains the test cases of a class.
+	 *
+	 * @param in content of the report
+	 * @throws XMLStreamException if the report is not valid
+	 */
+	synchronized void parse(InputStream in) throws XMLStreamException {
+		XMLStreamReader reader = getFactory().createXMLStreamReader(in);
+		try {
+			String className = null;
+			String suiteTime = null;
+			double casesTime = 0;
+			String caseName = null;
+			String failureType = null;
+			StringBuilder trace = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String element = reader.getLocalName();
+					if (element.equals("testsuite")) {
+						className = reader.getAttributeValue(null, "name");
+						suiteTime = reader.getAttributeValue(null, "time");
+					} else if (element.equals("testcase")) {
+						this.tests++;
+						caseName = reader.getAttributeValue(null, "name");
+						casesTime += parseTime(reader.getAttributeValue(null, "time"));
+						if (className == null) {
+							className = reader.getAttributeValue(null, "classname");
+						}
+					} else if (element.equals("failure") || element.equals("error")) {
+						if (element.equals("failure")) {
+							this.failures++;
+						} else {
+							this.errors++;
+						}
+						failureType = reader.getAttributeValue(null, "type");
+						trace = new StringBuilder();
+					} else if (element.equals("skipped")) {
+						this.skipped++;
+					}
+				} else if (trace != null && (event == XMLStreamConstants.CHARACTERS
+						|| event == XMLStreamConstants.CDATA)) {
+					if (trace.length() < MAXIMUM_TRACE_LENGTH) {
+						trace.append(reader.getText());
+					}
+				} else if (trace != null && event == XMLStreamConstants.END_ELEMENT) {
+					addFailure(className, caseName, failureType, trace);
+					trace = null;
+				}
+			}
+
+			if (className != null) {
+				this.classes++;
+				double duration = (suiteTime != null) ? parseTime(suiteTime) : casesTime;
+				addClass(new ClassDuration(TestResults.getSimpleName(className), duration));
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Parses the duration of a test, that old versions of surefire format with the
+	 * grouping separator.
+	 *
+	 * @param time duration in seconds, or null
+	 * @return duration in seconds, or 0 if it is not valid
+	 */
+	private static double parseTime(String time) {
+		if (time == null) {
+			return 0;
+		}
+
+		try {
+			return Double.parseDouble(time.replace(",", ""));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Adds a failed test, in the format of the selectors of the test command.
+	 *
+	 * @param className name of the class
+	 * @param caseName name of the test case
+	 * @param failureType type of the exception, or null
+	 * @param trace beginning of the stack trace
+	 */
+	private void addFailure(String className, String caseName, String failureType, CharSequence trace) {
+		if (this.failedTests.size() == MAXIMUM_FAILURES) {
+			return;
+		}
+
+		String test = TestResults.getSimpleName(String.valueOf(className)) + "#"
+				+ TestResults.getMethodName(String.valueOf(caseName));
+		String frame = getFirstFrame(trace);
+		if (frame == null) {
+			frame = (failureType != null) ? failureType : "";
+		}
+		this.failedTests.add(new Failure(test, frame));
+	}
+
+	/**
+	 * Gets the first frame of a stack trace.
+	 *
+	 * @param trace beginning of the stack trace
+	 * @return first frame, the first line if the trace contains no frame, or null if
+	 * the trace is empty
+	 */
+	private static String getFirstFrame(CharSequence trace) {
+		String firstLine = null;
+		for (String line : trace.toString().split("\n")) {
+			line = line.trim();
+			if (line.startsWith("at ")) {
+				return line;
+			}
+			if (firstLine == null && !line.isEmpty()) {
+				firstLine = line;
+			}
+		}
+
+		return firstLine;
+	}
+
+	/**
+	 * Adds a class to the slowest classes, if it is slower than one of them.
+	 *
+	 * @param duration duration of the class
+	 */
+	private void addClass(ClassDuration duration) {
+		this.slowestClasses.add(duration);
+		if (this.slowestClasses.size() > MAXIMUM_CLASSES) {
+			this.slowestClasses.poll();
+		}
+	}
+
+	/**
+	 * Merges the summary of a module.
+	 *
+	 * @param module summary of the module
+	 */
+	void merge(TestReport module) {
+		List<Failure> failedTests;
+		List<ClassDuration> durations;
+		int classes, tests, failures, errors, skipped;
+		synchronized (module) {
+			classes = module.classes;
+			tests = module.tests;
+			failures = module.failures;
+			errors = module.errors;
+			skipped = module.skipped;
+			failedTests = new ArrayList<>(module.failedTests);
+			durations = new ArrayList<>(module.slowestClasses);
+		}
+
+		synchronized (this) {
+			this.classes += classes;
+			this.tests += tests;
+			this.failures += failures;
+			this.errors += errors;
+			this.skipped += skipped;
+			for (Failure failedTest : failedTests) {
+				if (this.failedTests.size() == MAXIMUM_FAILURES) {
+					break;
+				}
+				this.failedTests.add(failedTest);
+			}
+			for (ClassDuration duration : durations) {
+				addClass(duration);
+			}
+		}
+	}
+
+	/**
+	 * Creates the summary of the reports.
+	 *
+	 * @return lines of the summary, or an empty string if no report has been found
+	 */
+	synchronized String getSummary() {
+		if (this.classes == 0) {
+			return "";
+		}
+
+		StringBuilder builder = new StringBuilder();
+		builder.append('\n').append(Messages.testTotals(this.tests, this.failures, this.errors,
+				this.skipped, this.classes));
+		if (!this.failedTests.isEmpty()) {
+			builder.append('\n').append(Messages.failedTestsHeader());
+			for (Failure failedTest : this.failedTests) {
+				builder.append('\n').append(Messages.testFailure(failedTest.test, failedTest.frame));
+			}
+			int others = this.failures + this.errors - this.failedTests.size();
+			if (others > 0) {
+				builder.append('\n').append(Messages.otherFailedTests(others));
+			}
+		}
+
+		List<ClassDuration> durations = new ArrayList<>(this.slowestClasses);
+		Collections.sort(durations, Collections.reverseOrder(new DurationOrder()));
+		builder.append('\n').append(Messages.slowestClassesHeader());
+		for (ClassDuration duration : durations) {
+			builder.append('\n').append(Messages.classDuration(duration.name,
+					String.format(Locale.ROOT, "%.2f", duration.duration)));
+		}
+
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.Extension;
+import hudson.maven.MavenBuild;
+import hudson.maven.MavenBuildProxy;
+import hudson.maven.MavenBuildProxy.BuildCallable;
+import hudson.maven.MavenModule;
+import hudson.maven.MavenModuleSetBuild;
+import hudson.maven.MavenReporter;
+import hudson.maven.MavenReporterDescriptor;
+import hudson.maven.MojoInfo;
+import hudson.model.BuildListener;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.ComponentConfigurationException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+
+/**
+ * Class that extends {@link MavenReporter} class and parses the surefire reports of
+ * the modules of the builds started by the test command into a {@link TestReport},
+ * in the maven process and as soon as the tests of each module complete.
+ * <p>
+ * As the SurefireArchiver of the maven plugin, the reporter reads the reports
+ * directory from the configuration of the surefire mojo and skips the reports written
+ * before the build started. The summary of each module is then added to the
+ * {@link SlackResponseAction} of the build, that {@link SlackResponseListener} sends
+ * when the build completes.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class TestReportReporter extends MavenReporter {
+
+	private static final long serialVersionUID = 1L;
+	// the reports written just before the build started are not left by another build
+	private static final long TIME_TOLERANCE = 3000;
+	private static final String REPORT_EXPRESSION = "${" + TestGoalsAction.REPORT_PROPERTY + "}";
+
+	/**
+	 * Callable that adds the summary of a module to the report of its build.
+	 */
+	private static final class AddReport implements BuildCallable<Void, IOException> {
+
+		private static final long serialVersionUID = 1L;
+		private final TestReport module;
+
+		/**
+		 * Stores the summary of a module.
+		 *
+		 * @param module summary of the module
+		 */
+		private AddReport(TestReport module) {
+			this.module = module;
+		}
+
+		@Override
+		public Void call(MavenBuild build) {
+			TestReport report = getReport(build);
+			if (report != null) {
+				report.merge(this.module);
+			}
+
+			return null;
+		}
+
+	}
+
+	/**
+	 * Gets the report of the build a module build belongs to.
+	 *
+	 * @param build build of a module
+	 * @return report of the build, or null if the build was not started by the test
+	 * command
+	 */
+	private static TestReport getReport(MavenBuild build) {
+		MavenModuleSetBuild parentBuild = build.getParentBuild();
+		SlackResponseAction action = (parentBuild != null)
+				? parentBuild.getAction(SlackResponseAction.class) : null;
+		return (action != null) ? action.getReport() : null;
+	}
+
+	@Override
+	public boolean postExecute(MavenBuildProxy build, MavenProject pom, MojoInfo mojo,
+			BuildListener listener, Throwable error) throws InterruptedException, IOException {
+		// check if the tests of the module have been performed by the test command
+		if (!mojo.is("org.apache.maven.plugins", "maven-surefire-plugin", "test") || !isSlackTest(mojo)) {
+			return true;
+		}
+
+		File reportsDirectory;
+		try {
+			reportsDirectory = mojo.getConfigurationValue("reportsDirectory", File.class);
+		} catch (ComponentConfigurationException e) {
+			throw new IOException(e);
+		}
+		if (reportsDirectory == null || !reportsDirectory.isDirectory()) {
+			return true;
+		}
+
+		long buildTime = System.currentTimeMillis() - build.getMilliSecsSinceBuildStart();
+		TestReport module = new TestReport();
+		module.addReports(reportsDirectory, buildTime - TIME_TOLERANCE);
+		build.execute(new AddReport(module));
+		return true;
+	}
+
+	/**
+	 * Checks if the build has been started by the test command, reading the property 
+	 * defined by its goals in the maven process, so that the other builds do not 
+	 * contact Jenkins.
+	 *
+	 * @param mojo surefire mojo
+	 * @return true if the build has been started by the test command, otherwise false
+	 * @throws IOException if the property cannot be evaluated
+	 */
+	private static boolean isSlackTest(MojoInfo mojo) throws IOException {
+		try {
+			return "true".equals(String.valueOf(mojo.expressionEvaluator.evaluate(REPORT_EXPRESSION)));
+		} catch (ExpressionEvaluationException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Descriptor that adds the reporter to all the maven modules.
+	 */
+	@Extension
+	public static final class DescriptorImpl extends MavenReporterDescriptor {
+
+		@Override
+		public String getDisplayName() {
+			return Messages.testReportDisplayName();
+		}
+
+		@Override
+		public MavenReporter newAutoInstance(MavenModule module) {
+			return new TestReportReporter();
+		}
+
+	}
+
+}
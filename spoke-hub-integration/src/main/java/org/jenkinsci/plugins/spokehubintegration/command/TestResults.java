@@ -0,0 +1,151 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.maven.MavenModuleSetBuild;
+import hudson.tasks.junit.CaseResult;
+import hudson.tasks.junit.ClassResult;
+import hudson.tasks.junit.PackageResult;
+import hudson.tasks.junit.TestResult;
+import hudson.tasks.test.AggregatedTestResultAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Class that reads the test results of the modules of a maven build, to select the 
+ * tests run by the test command.
+ * <p>
+ * The classes are identified by their simple name, as in the filters of the test 
+ * command, so the classes with the same name in different packages are merged.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+final class TestResults {
+
+	/**
+	 * Prevents the instantiation of the class.
+	 */
+	private TestResults() {
+	}
+
+	/**
+	 * Gets the test results of the modules of a build.
+	 *
+	 * @param build maven build, or null
+	 * @return test results of the modules, empty if the build has no test results
+	 */
+	static List<TestResult> getResults(MavenModuleSetBuild build) {
+		AggregatedTestResultAction action = (build != null) 
+				? build.getAction(AggregatedTestResultAction.class) : null;
+		if (action == null) {
+			return Collections.emptyList();
+		}
+
+		List<TestResult> results = new ArrayList<>();
+		for (AggregatedTestResultAction.ChildReport report : action.getChildReports()) {
+			if (report.result != null && report.result.getResult() instanceof TestResult) {
+				results.add((TestResult) report.result.getResult());
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Gets the duration of each test class of a build, summing the durations of the 
+	 * classes with the same simple name.
+	 *
+	 * @param build maven build, or null
+	 * @return from the simple name of the class to its duration in seconds
+	 */
+	static Map<String, Float> getClassDurations(MavenModuleSetBuild build) {
+		Map<String, Float> durations = new TreeMap<>();
+		for (TestResult result : getResults(build)) {
+			for (PackageResult packageResult : result.getChildren()) {
+				for (ClassResult classResult : packageResult.getChildren()) {
+					String name = getSimpleName(classResult.getFullName());
+					Float duration = durations.get(name);
+					durations.put(name, ((duration != null) ? duration : 0) + classResult.getDuration());
+				}
+			}
+		}
+
+		return durations;
+	}
+
+	/**
+	 * Gets the tests that failed in a build.
+	 *
+	 * @param build maven build, or null
+	 * @return from the simple name of the class to the names of its failed methods
+	 */
+	static Map<String, Set<String>> getFailedTests(MavenModuleSetBuild build) {
+		Map<String, Set<String>> failedTests = new TreeMap<>();
+		for (TestResult result : getResults(build)) {
+			for (CaseResult caseResult : result.getFailedTests()) {
+				String name = getSimpleName(caseResult.getClassName());
+				Set<String> methods = failedTests.get(name);
+				if (methods == null) {
+					methods = new TreeSet<>();
+					failedTests.put(name, methods);
+				}
+				methods.add(getMethodName(caseResult.getName()));
+			}
+		}
+
+		return failedTests;
+	}
+
+	/**
+	 * Creates the surefire filter that runs some methods of some classes.
+	 *
+	 * @param tests from the simple name of the class to the names of its methods
+	 * @return filter in the Class#method1+method2,... format
+	 */
+	static String toFilter(Map<String, Set<String>> tests) {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, Set<String>> test : tests.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append(',');
+			}
+			builder.append(test.getKey()).append('#');
+			boolean first = true;
+			for (String method : test.getValue()) {
+				if (!first) {
+					builder.append('+');
+				}
+				builder.append(method);
+				first = false;
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Gets the simple name of a class.
+	 *
+	 * @param className fully qualified name of the class
+	 * @return name of the class without its package
+	 */
+	static String getSimpleName(String className) {
+		return className.substring(className.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Gets the name of the method of a test case.
+	 *
+	 * @param name name of the test case
+	 * @return name of the method, without the index of a parameterized test
+	 */
+	static String getMethodName(String name) {
+		int index = name.indexOf('[');
+		return (index > 0) ? name.substring(0, index) : name;
+	}
+
+}
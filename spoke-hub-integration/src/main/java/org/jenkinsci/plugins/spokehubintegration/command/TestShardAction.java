@@ -0,0 +1,64 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.Action;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+
+import java.util.List;
+
+/**
+ * Class that marks the builds of the shards of a test command.
+ * <p>
+ * A shard is never merged with another build in the queue, otherwise its result 
+ * would not be counted.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class TestShardAction extends InvisibleAction implements Queue.QueueAction {
+
+	private final String shardsId;
+	private final int shard;
+
+	/**
+	 * Stores the shard of the build.
+	 *
+	 * @param shardsId identifier of the shards
+	 * @param shard number of the shard, starting from 1
+	 */
+	public TestShardAction(String shardsId, int shard) {
+		this.shardsId = shardsId;
+		this.shard = shard;
+	}
+
+	/**
+	 * Gets the identifier of the shards.
+	 *
+	 * @return identifier of the shards
+	 */
+	public String getShardsId() {
+		return this.shardsId;
+	}
+
+	/**
+	 * Gets the number of the shard.
+	 *
+	 * @return number of the shard, starting from 1
+	 */
+	public int getShard() {
+		return this.shard;
+	}
+
+	@Override
+	public boolean shouldSchedule(List<Action> actions) {
+		for (Action action : actions) {
+			if (action instanceof TestShardAction && this.shardsId.equals(((TestShardAction) action).shardsId)
+					&& this.shard == ((TestShardAction) action).shard) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+}
@@ -0,0 +1,27 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Class that extends {@link RunListener} class and notifies the {@link TestShards} 
+ * of a build when it completes.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+@Extension
+public class TestShardListener extends RunListener<Run<?, ?>> {
+
+	@Override
+	public void onCompleted(Run<?, ?> run, TaskListener listener) {
+		TestShardAction action = run.getAction(TestShardAction.class);
+		// check if the build is a shard of a test command
+		if (action != null) {
+			TestShards.completed(action.getShardsId(), action.getShard(), run);
+		}
+	}
+
+}
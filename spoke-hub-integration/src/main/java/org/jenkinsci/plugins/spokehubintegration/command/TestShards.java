@@ -0,0 +1,256 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.maven.MavenModuleSetBuild;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.tasks.test.AbstractTestResultAction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.util.Timer;
+
+import org.jenkinsci.plugins.spokehubintegration.JSONResponse;
+import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Class that splits the tests of a maven project into shards run as concurrent 
+ * builds, and merges their results into a single message.
+ * <p>
+ * The test classes are taken from the results of a previous build, and are split 
+ * into groups with a similar duration. The classes without a duration are weighted 
+ * with the average duration, so that they are split by their number if no duration 
+ * is known. The last shard excludes the classes of the other shards instead of 
+ * listing its own, so that it also runs the classes added since that build. The 
+ * builds of the shards are marked with a {@link TestShardAction}, so that 
+ * {@link TestShardListener} and {@link CancelledBuildListener} notify the shards when 
+ * they complete or are cancelled, without any thread waiting for them. The shards are
+ * kept in memory, so the results of the shards running when Jenkins is restarted are 
+ * not sent.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+final class TestShards {
+
+	private static final Logger LOGGER = Logger.getLogger(TestShards.class.getName());
+	private static final ConcurrentMap<String, TestShards> SHARDS = new ConcurrentHashMap<>();
+	private final String id = UUID.randomUUID().toString();
+	private final String responseUrl;
+	private final String projectName;
+	private final int numberShards;
+	// the following fields are guarded by this
+	private int completedShards;
+	private int totalTests;
+	private int failedTests;
+	private Result worstResult = Result.SUCCESS;
+	private final List<String> failedShards = new ArrayList<>();
+
+	/**
+	 * Creates the shards of a test command.
+	 *
+	 * @param responseUrl response_url of the request
+	 * @param projectName full name of the maven project
+	 * @param numberShards number of shards
+	 */
+	TestShards(String responseUrl, String projectName, int numberShards) {
+		this.responseUrl = responseUrl;
+		this.projectName = projectName;
+		this.numberShards = numberShards;
+		SHARDS.put(this.id, this);
+	}
+
+	/**
+	 * Gets the identifier of the shards.
+	 *
+	 * @return identifier of the shards
+	 */
+	String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Splits the test classes of a build into groups with a similar duration.
+	 *
+	 * @param build build whose test results are used, or null
+	 * @param numberShards maximum number of groups
+	 * @return simple names of the classes of each group, empty if the build has no 
+	 * test results
+	 */
+	static List<List<String>> split(MavenModuleSetBuild build, int numberShards) {
+		Map<String, Float> durations = TestResults.getClassDurations(build);
+		if (durations.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		float total = 0;
+		int known = 0;
+		for (float duration : durations.values()) {
+			if (duration > 0) {
+				total += duration;
+				known++;
+			}
+		}
+		float average = (known > 0) ? total / known : 1;
+		List<Map.Entry<String, Float>> classes = new ArrayList<>(durations.entrySet());
+		for (Map.Entry<String, Float> entry : classes) {
+			if (entry.getValue() <= 0) {
+				entry.setValue(average);
+			}
+		}
+		// the longest classes are assigned first, each to the shortest group
+		Collections.sort(classes, new Comparator<Map.Entry<String, Float>>() {
+			@Override
+			public int compare(Map.Entry<String, Float> a, Map.Entry<String, Float> b) {
+				int result = Float.compare(b.getValue(), a.getValue());
+				return (result != 0) ? result : a.getKey().compareTo(b.getKey());
+			}
+		});
+
+		int size = Math.min(numberShards, classes.size());
+		final float[] loads = new float[size];
+		List<List<String>> groups = new ArrayList<>(size);
+		PriorityQueue<Integer> shortest = new PriorityQueue<>(size, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int result = Float.compare(loads[a], loads[b]);
+				return (result != 0) ? result : a.compareTo(b);
+			}
+		});
+		for (int i = 0; i < size; i++) {
+			groups.add(new ArrayList<String>());
+			shortest.add(i);
+		}
+		for (Map.Entry<String, Float> entry : classes) {
+			int group = shortest.poll();
+			groups.get(group).add(entry.getKey());
+			loads[group] += entry.getValue();
+			shortest.add(group);
+		}
+
+		return groups;
+	}
+
+	/**
+	 * Creates the surefire filters of the groups of classes. The filter of the last 
+	 * group excludes the classes of the other groups, so that the classes unknown to 
+	 * the build used to split them are tested too.
+	 *
+	 * @param groups simple names of the classes of each group
+	 * @return filter of each group, null if the group must run all the tests
+	 */
+	static List<String> getFilters(List<List<String>> groups) {
+		List<String> filters = new ArrayList<>(groups.size());
+		StringBuilder excluded = new StringBuilder();
+		for (int i = 0; i < groups.size() - 1; i++) {
+			StringBuilder filter = new StringBuilder();
+			for (String name : groups.get(i)) {
+				if (filter.length() > 0) {
+					filter.append(',');
+				}
+				filter.append(name);
+				if (excluded.length() > 0) {
+					excluded.append(',');
+				}
+				excluded.append('!').append(name);
+			}
+			filters.add(filter.toString());
+		}
+		if (!groups.isEmpty()) {
+			filters.add((excluded.length() > 0) ? excluded.toString() : null);
+		}
+
+		return filters;
+	}
+
+	/**
+	 * Notifies the shards that one of their builds has completed. The summary is sent 
+	 * on a thread of the Jenkins timer when all the shards have completed.
+	 *
+	 * @param id identifier of the shards
+	 * @param shard number of the shard, starting from 1
+	 * @param run build of the shard, or null if the shard was not built
+	 */
+	static void completed(String id, int shard, Run<?, ?> run) {
+		TestShards shards = SHARDS.get(id);
+		// check if the shards are still running in this Jenkins instance
+		if (shards == null) {
+			return;
+		}
+
+		final SlackMessage message = shards.update(shard, run);
+		if (message == null) {
+			return;
+		}
+
+		final String responseUrl = shards.responseUrl;
+		Timer.get().submit(new Runnable() {
+			@Override
+			public void run() {
+				new JSONResponse(message, StaplerResponse.SC_OK).sendResponse(responseUrl);
+			}
+		});
+	}
+
+	/**
+	 * Adds the result of a shard.
+	 *
+	 * @param shard number of the shard, starting from 1
+	 * @param run build of the shard, or null if the shard was not built
+	 * @return summary of the shards if all of them have completed, otherwise null
+	 */
+	private synchronized SlackMessage update(int shard, Run<?, ?> run) {
+		Result result = (run != null) ? run.getResult() : Result.NOT_BUILT;
+		if (result == null) {
+			result = Result.NOT_BUILT;
+		}
+		if (run != null) {
+			AbstractTestResultAction<?> action = run.getAction(AbstractTestResultAction.class);
+			if (action != null) {
+				this.totalTests += action.getTotalCount();
+				this.failedTests += action.getFailCount();
+			}
+		}
+		if (result != Result.SUCCESS) {
+			String number = (run != null) ? String.valueOf(run.getNumber()) : "-";
+			this.failedShards.add(Messages.shardFailed(shard, number, result));
+		}
+		if (result.isWorseThan(this.worstResult)) {
+			this.worstResult = result;
+		}
+		if (++this.completedShards < this.numberShards) {
+			return null;
+		}
+
+		SHARDS.remove(this.id);
+		StringBuilder builder = new StringBuilder(Messages.shardsCompleted(this.projectName, 
+				this.numberShards, this.totalTests, this.failedTests));
+		for (String failedShard : this.failedShards) {
+			builder.append('\n').append(failedShard);
+		}
+		String message = builder.toString();
+		LOGGER.log(Level.INFO, message);
+		String color;
+		if (this.worstResult == Result.SUCCESS) {
+			color = Messages.good();
+		} else if (this.worstResult == Result.UNSTABLE) {
+			// some tests failed
+			color = Messages.warning();
+		} else {
+			color = Messages.danger();
+		}
+
+		return new SlackMessage(message, color);
+	}
+
+}
@@ -0,0 +1,30 @@
+package org.jenkinsci.plugins.spokehubintegration.exception;
+
+/**
+ * Class that extends {@link Exception} class and models the insertion of a value
+ * that is not valid for its parameter.
+ * 
+ * @author Tommaso Montingelli
+ *
+ */
+@SuppressWarnings("serial")
+public class InvalidParameterValueException extends Exception {
+	
+	private final String parameter;
+	private final String value;
+	
+	public InvalidParameterValueException(String parameter, String value, Throwable cause) {
+		super(parameter + "=" + value, cause);
+		this.parameter = parameter;
+		this.value = value;
+	}
+	
+	public String getParameter() {
+		return this.parameter;
+	}
+	
+	public String getValue() {
+		return this.value;
+	}
+
+}
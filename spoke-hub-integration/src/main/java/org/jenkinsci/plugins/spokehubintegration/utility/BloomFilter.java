@@ -0,0 +1,113 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that implements a lock-free Bloom filter of strings.
+ * <p>
+ * The filter answers whether a string might have been added, with no false
+ * negatives and a configurable rate of false positives, using a few bits per string.
+ * Strings can be added concurrently with the queries, but cannot be removed.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class BloomFilter {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private final AtomicLongArray bits;
+	private final int numBits;
+	private final int numHashes;
+	private final int expectedInsertions;
+	private final AtomicInteger insertions = new AtomicInteger();
+
+	/**
+	 * Creates an empty filter.
+	 *
+	 * @param expectedInsertions number of strings the filter is sized for
+	 * @param falsePositiveRate rate of false positives when the filter contains the
+	 * expected number of strings
+	 */
+	public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException(expectedInsertions + ", " + falsePositiveRate);
+		}
+
+		double ln2 = Math.log(2);
+		long numBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+		this.numBits = (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, numBits));
+		this.numHashes = Math.max(1, (int) Math.round((double) this.numBits / expectedInsertions * ln2));
+		this.bits = new AtomicLongArray((this.numBits + Long.SIZE - 1) / Long.SIZE);
+		this.expectedInsertions = expectedInsertions;
+	}
+
+	/**
+	 * Computes the 64-bit FNV-1a hash of a string.
+	 *
+	 * @param value string to hash
+	 * @return hash of the string
+	 */
+	private static long hash(String value) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < value.length(); i++) {
+			hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Adds a string to the filter.
+	 *
+	 * @param value string to add
+	 */
+	public void put(String value) {
+		long hash = hash(value);
+		// the bit positions are derived from the two halves of the hash
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 1; i <= this.numHashes; i++) {
+			int bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.numBits;
+			int index = bit / Long.SIZE;
+			long mask = 1L << (bit % Long.SIZE);
+			long current = this.bits.get(index);
+			while ((current & mask) == 0 && !this.bits.compareAndSet(index, current, current | mask)) {
+				current = this.bits.get(index);
+			}
+		}
+		this.insertions.incrementAndGet();
+	}
+
+	/**
+	 * Checks if a string might have been added to the filter.
+	 *
+	 * @param value string to check
+	 * @return false if the string has never been added, true if it might have been added
+	 */
+	public boolean mightContain(String value) {
+		long hash = hash(value);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+		for (int i = 1; i <= this.numHashes; i++) {
+			int bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.numBits;
+			if ((this.bits.get(bit / Long.SIZE) & (1L << (bit % Long.SIZE))) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks if more strings than expected have been added, so that the rate of false
+	 * positives is higher than the configured one.
+	 *
+	 * @return true if the filter is full, otherwise false
+	 */
+	public boolean isFull() {
+		return this.insertions.get() > this.expectedInsertions;
+	}
+
+}
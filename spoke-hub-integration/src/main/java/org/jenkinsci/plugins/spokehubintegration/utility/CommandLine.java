@@ -0,0 +1,340 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable view of the tokens of a slash command text.
+ * <p>
+ * The text is scanned once and every token is stored as offsets into the text, so
+ * no string is created until a token is requested. The lexer recognizes:
+ * <ul>
+ * <li>words separated by whitespace (E.g. build, -p)</li>
+ * <li>values enclosed in double or single quotes, that may contain whitespace</li>
+ * <li>key=value pairs, with optional whitespace around the equals sign</li>
+ * <li>comma separated lists, with optional whitespace around the commas</li>
+ * </ul>
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public final class CommandLine {
+
+	// each token is stored in four slots: start, end, end of the key, start of the value
+	private static final int SLOTS = 4;
+	private static final int START = 0;
+	private static final int END = 1;
+	private static final int KEY_END = 2;
+	private static final int VALUE_START = 3;
+	private static final int INITIAL_TOKENS = 8;
+	private final String text;
+	private final int[] offsets;
+	private final int size;
+
+	/**
+	 * Scans a slash command text.
+	 *
+	 * @param text text to scan
+	 */
+	public CommandLine(String text) {
+		this.text = text;
+		int n = text.length();
+		int[] offsets = new int[INITIAL_TOKENS * SLOTS];
+		int size = 0;
+		int i = skipWhitespace(text, 0);
+		while (i < n) {
+			int start = i;
+			int keyEnd = -1;
+			int valueStart = -1;
+			boolean quoted = isQuote(text.charAt(i));
+			i = skipItem(text, i, true);
+			// check if the first item is the key of a key=value pair
+			int j = skipWhitespace(text, i);
+			if (!quoted && j < n && text.charAt(j) == '=') {
+				keyEnd = i;
+				valueStart = skipWhitespace(text, j + 1);
+				i = valueStart < n ? skipItem(text, valueStart, false) : j + 1;
+			}
+			// join the items separated by commas
+			j = skipWhitespace(text, i);
+			while (j < n && text.charAt(j) == ',') {
+				i = j + 1;
+				int k = skipWhitespace(text, i);
+				if (k < n && text.charAt(k) != ',') {
+					i = skipItem(text, k, false);
+				}
+				j = skipWhitespace(text, i);
+			}
+
+			if ((size + 1) * SLOTS > offsets.length) {
+				offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			}
+			int base = size * SLOTS;
+			offsets[base + START] = start;
+			offsets[base + END] = i;
+			offsets[base + KEY_END] = keyEnd;
+			offsets[base + VALUE_START] = valueStart;
+			size++;
+			i = j;
+		}
+		this.offsets = offsets;
+		this.size = size;
+	}
+
+	/**
+	 * Skips the whitespace starting from a position of the text.
+	 *
+	 * @param text text to scan
+	 * @param i start position
+	 * @return position of the first character that is not whitespace
+	 */
+	private static int skipWhitespace(String text, int i) {
+		int n = text.length();
+		while (i < n && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Skips a quoted or unquoted item starting from a position of the text.
+	 *
+	 * @param text text to scan
+	 * @param i start position
+	 * @param key true if the item can be the key of a key=value pair
+	 * @return position following the item
+	 */
+	private static int skipItem(String text, int i, boolean key) {
+		int n = text.length();
+		char c = text.charAt(i);
+		if (isQuote(c)) {
+			// an unterminated quote extends to the end of the text
+			int close = text.indexOf(c, i + 1);
+			return close < 0 ? n : close + 1;
+		}
+
+		while (i < n) {
+			c = text.charAt(i);
+			if (Character.isWhitespace(c) || c == ',' || (key && c == '=')) {
+				break;
+			}
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Checks if a character starts a quoted item.
+	 *
+	 * @param c character to check
+	 * @return true if the character is a double or single quote, otherwise false
+	 */
+	private static boolean isQuote(char c) {
+		return c == '"' || c == '\'';
+	}
+
+	/**
+	 * Removes the quotes that enclose a region of the text.
+	 *
+	 * @param start start of the region
+	 * @param end end of the region
+	 * @return content of the region without the quotes
+	 */
+	private String unquote(int start, int end) {
+		if (end > start && isQuote(this.text.charAt(start))) {
+			char quote = this.text.charAt(start);
+			if (end - start > 1 && this.text.charAt(end - 1) == quote) {
+				return this.text.substring(start + 1, end - 1);
+			}
+			return this.text.substring(start + 1, end);
+		}
+
+		return this.text.substring(start, end);
+	}
+
+	/**
+	 * Gets the scanned text.
+	 *
+	 * @return scanned text
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/**
+	 * Gets the number of tokens.
+	 *
+	 * @return number of tokens
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the position in the text where a token starts.
+	 *
+	 * @param index index of the token
+	 * @return start offset of the token
+	 */
+	public int getStart(int index) {
+		return this.offsets[checkIndex(index) * SLOTS + START];
+	}
+
+	/**
+	 * Gets the position in the text that follows a token.
+	 *
+	 * @param index index of the token
+	 * @return end offset of the token
+	 */
+	public int getEnd(int index) {
+		return this.offsets[checkIndex(index) * SLOTS + END];
+	}
+
+	/**
+	 * Checks if a token is a key=value pair.
+	 *
+	 * @param index index of the token
+	 * @return true if the token is a key=value pair, otherwise false
+	 */
+	public boolean isPair(int index) {
+		return this.offsets[checkIndex(index) * SLOTS + KEY_END] >= 0;
+	}
+
+	/**
+	 * Gets a token as typed by the user.
+	 *
+	 * @param index index of the token
+	 * @return text of the token, including quotes and whitespace
+	 */
+	public String getRaw(int index) {
+		return this.text.substring(getStart(index), getEnd(index));
+	}
+
+	/**
+	 * Gets a token without quotes. A key=value pair is returned without the whitespace
+	 * around the equals sign.
+	 *
+	 * @param index index of the token
+	 * @return content of the token
+	 */
+	public String getToken(int index) {
+		if (isPair(index)) {
+			return getKey(index) + "=" + getValue(index);
+		}
+
+		return unquote(getStart(index), getEnd(index));
+	}
+
+	/**
+	 * Checks if a token is equal to a string, without creating the token.
+	 *
+	 * @param index index of the token
+	 * @param token string to compare
+	 * @return true if the token is not quoted and is equal to the string, otherwise false
+	 */
+	public boolean isToken(int index, String token) {
+		int start = getStart(index);
+		int length = getEnd(index) - start;
+		return length == token.length() && this.text.regionMatches(start, token, 0, length);
+	}
+
+	/**
+	 * Gets the key of a key=value pair.
+	 *
+	 * @param index index of the token
+	 * @return key of the pair, or null if the token is not a pair
+	 */
+	public String getKey(int index) {
+		int base = checkIndex(index) * SLOTS;
+		int keyEnd = this.offsets[base + KEY_END];
+		if (keyEnd < 0) {
+			return null;
+		}
+
+		return this.text.substring(this.offsets[base + START], keyEnd);
+	}
+
+	/**
+	 * Gets the value of a key=value pair.
+	 *
+	 * @param index index of the token
+	 * @return value of the pair without quotes, or null if the token is not a pair
+	 */
+	public String getValue(int index) {
+		int base = checkIndex(index) * SLOTS;
+		if (this.offsets[base + KEY_END] < 0) {
+			return null;
+		}
+
+		int end = this.offsets[base + END];
+		return unquote(Math.min(this.offsets[base + VALUE_START], end), end);
+	}
+
+	/**
+	 * Gets the items of a comma separated list.
+	 *
+	 * @param index index of the token
+	 * @return items of the list without quotes, or a list with only the token if it is
+	 * not a list
+	 */
+	public List<String> getItems(int index) {
+		int start = getStart(index);
+		int end = getEnd(index);
+		List<String> items = new ArrayList<>();
+		int i = start;
+		while (i <= end) {
+			int itemStart = skipWhitespace(this.text, i);
+			int itemEnd = itemStart;
+			// commas inside quotes do not separate items
+			while (itemEnd < end && this.text.charAt(itemEnd) != ',') {
+				char c = this.text.charAt(itemEnd);
+				if (isQuote(c)) {
+					int close = this.text.indexOf(c, itemEnd + 1);
+					itemEnd = (close < 0 || close >= end) ? end : close + 1;
+				} else {
+					itemEnd++;
+				}
+			}
+			int next = itemEnd + 1;
+			while (itemEnd > itemStart && Character.isWhitespace(this.text.charAt(itemEnd - 1))) {
+				itemEnd--;
+			}
+			items.add(unquote(Math.min(itemStart, itemEnd), itemEnd));
+			i = next;
+		}
+
+		return items;
+	}
+
+	/**
+	 * Checks if the index of a token is valid.
+	 *
+	 * @param index index of the token
+	 * @return the index
+	 * @throws IndexOutOfBoundsException if there is no token with that index
+	 */
+	private int checkIndex(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Token " + index + " of " + this.size);
+		}
+
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("CommandLine [");
+		for (int i = 0; i < this.size; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(getToken(i));
+		}
+
+		return builder.append("]").toString();
+	}
+
+}
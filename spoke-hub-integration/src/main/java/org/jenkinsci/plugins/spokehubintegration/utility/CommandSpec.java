@@ -0,0 +1,97 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+/**
+ * Immutable class that describes the mapping of a command read from the XML file.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public final class CommandSpec {
+
+	private static final String EXPENSIVE = "expensive";
+	private final String command;
+	private final String className;
+	private final String methodName;
+	private final String parameterClassName;
+	private final String cost;
+
+	/**
+	 * Creates a new command mapping.
+	 *
+	 * @param command name of the command
+	 * @param className name of the invoker class
+	 * @param methodName name of the invoker method
+	 * @param parameterClassName name of the command class passed to the invoker
+	 * @param cost cost of the command
+	 */
+	public CommandSpec(String command, String className, String methodName,
+			String parameterClassName, String cost) {
+		this.command = command;
+		this.className = className;
+		this.methodName = methodName;
+		this.parameterClassName = parameterClassName;
+		this.cost = cost;
+	}
+
+	/**
+	 * Gets the name of the command.
+	 *
+	 * @return name of the command
+	 */
+	public String getCommand() {
+		return this.command;
+	}
+
+	/**
+	 * Gets the name of the invoker class.
+	 *
+	 * @return name of the invoker class
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+
+	/**
+	 * Gets the name of the invoker method.
+	 *
+	 * @return name of the invoker method
+	 */
+	public String getMethodName() {
+		return this.methodName;
+	}
+
+	/**
+	 * Gets the name of the command class passed to the invoker.
+	 *
+	 * @return name of the command class
+	 */
+	public String getParameterClassName() {
+		return this.parameterClassName;
+	}
+
+	/**
+	 * Gets the cost of the command.
+	 *
+	 * @return cost of the command, or null if it is not set
+	 */
+	public String getCost() {
+		return this.cost;
+	}
+
+	/**
+	 * Checks if the command is expensive.
+	 *
+	 * @return true if the command is expensive, otherwise false
+	 */
+	public boolean isExpensive() {
+		return EXPENSIVE.equals(this.cost);
+	}
+
+	@Override
+	public String toString() {
+		return "CommandSpec [command=" + this.command + ", className=" + this.className
+				+ ", methodName=" + this.methodName + ", parameterClassName="
+				+ this.parameterClassName + ", cost=" + this.cost + "]";
+	}
+
+}
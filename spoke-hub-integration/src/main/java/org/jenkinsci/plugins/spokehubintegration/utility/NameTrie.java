@@ -0,0 +1,286 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class that implements a case-insensitive trie that maps keys to names.
+ * <p>
+ * The same name can be stored under several keys (E.g. the full name and the short
+ * name of a job). Every node knows whether all the names below it are the same, so
+ * that a key or a prefix is resolved to a unique name in a time proportional to its
+ * length. The trie also finds the names whose keys are within a bounded edit distance
+ * from a string.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class NameTrie {
+
+	// marks a node below which there are different names
+	private static final String AMBIGUOUS = new String("ambiguous");
+	private final Node root = new Node();
+
+	/**
+	 * Node of the trie.
+	 */
+	private static final class Node {
+
+		private final Map<Character, Node> children = new HashMap<>(4);
+		// names whose key ends at this node
+		private final Set<String> names = new HashSet<>(2);
+		// the only name below this node, null if there is none or AMBIGUOUS
+		private String unique;
+
+		/**
+		 * Computes the only name below this node from its names and its children.
+		 */
+		private void update() {
+			String unique = null;
+			for (String name : this.names) {
+				unique = merge(unique, name);
+			}
+			for (Node child : this.children.values()) {
+				if (unique == AMBIGUOUS) {
+					break;
+				}
+				unique = merge(unique, child.unique);
+			}
+			this.unique = unique;
+		}
+
+		/**
+		 * Merges the names below two nodes.
+		 *
+		 * @param a first name, or null
+		 * @param b second name, or null
+		 * @return the only name, null if both are null, or AMBIGUOUS
+		 */
+		private static String merge(String a, String b) {
+			if (a == AMBIGUOUS || b == AMBIGUOUS) {
+				return AMBIGUOUS;
+			}
+			if (a == null) {
+				return b;
+			}
+			if (b == null || a.equals(b)) {
+				return a;
+			}
+
+			return AMBIGUOUS;
+		}
+
+	}
+
+	/**
+	 * Normalizes a key.
+	 *
+	 * @param key key to normalize
+	 * @return key in lower case
+	 */
+	private static String normalize(String key) {
+		return key.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Adds a name under a key.
+	 *
+	 * @param key key of the name
+	 * @param name name to add
+	 */
+	public synchronized void put(String key, String name) {
+		key = normalize(key);
+		Node[] path = new Node[key.length() + 1];
+		Node node = this.root;
+		path[0] = node;
+		for (int i = 0; i < key.length(); i++) {
+			Character c = key.charAt(i);
+			Node child = node.children.get(c);
+			if (child == null) {
+				child = new Node();
+				node.children.put(c, child);
+			}
+			node = child;
+			path[i + 1] = node;
+		}
+		node.names.add(name);
+		for (int i = path.length - 1; i >= 0; i--) {
+			path[i].update();
+		}
+	}
+
+	/**
+	 * Removes a name from a key.
+	 *
+	 * @param key key of the name
+	 * @param name name to remove
+	 */
+	public synchronized void remove(String key, String name) {
+		key = normalize(key);
+		Node[] path = new Node[key.length() + 1];
+		Node node = this.root;
+		path[0] = node;
+		for (int i = 0; i < key.length(); i++) {
+			node = node.children.get(key.charAt(i));
+			if (node == null) {
+				return;
+			}
+			path[i + 1] = node;
+		}
+		if (!node.names.remove(name)) {
+			return;
+		}
+		for (int i = path.length - 1; i >= 0; i--) {
+			path[i].update();
+			// remove the nodes left without names
+			if (i > 0 && path[i].unique == null) {
+				path[i - 1].children.remove(key.charAt(i - 1));
+			}
+		}
+	}
+
+	/**
+	 * Resolves a key, or a prefix of a key, to a name.
+	 *
+	 * @param prefix key or prefix of a key
+	 * @return the name stored under the key if it is the only one, otherwise the only
+	 * name stored under the keys that start with the prefix, or null if there is no
+	 * name or more than one name
+	 */
+	public synchronized String resolve(String prefix) {
+		Node node = find(normalize(prefix));
+		if (node == null) {
+			return null;
+		}
+
+		// an exact key wins over the longer keys that start with it
+		if (node.names.size() == 1) {
+			return node.names.iterator().next();
+		}
+		if (node.names.isEmpty() && node.unique != AMBIGUOUS) {
+			return node.unique;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets all the names stored under the keys that start with a prefix.
+	 *
+	 * @param prefix prefix of the keys
+	 * @return names stored under the keys
+	 */
+	public synchronized Set<String> getNames(String prefix) {
+		Set<String> names = new HashSet<>();
+		Node node = find(normalize(prefix));
+		if (node != null) {
+			collect(node, names);
+		}
+
+		return names;
+	}
+
+	/**
+	 * Finds the names whose keys are within an edit distance from a string.
+	 *
+	 * @param key string to compare with the keys
+	 * @param maximumDistance maximum edit distance
+	 * @param maximumNames maximum number of names to return
+	 * @return names ordered by edit distance
+	 */
+	public synchronized List<String> suggest(String key, int maximumDistance, int maximumNames) {
+		key = normalize(key);
+		List<Set<String>> byDistance = new ArrayList<>();
+		for (int i = 0; i <= maximumDistance; i++) {
+			byDistance.add(new LinkedHashSet<String>());
+		}
+		int[] row = new int[key.length() + 1];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = i;
+		}
+		for (Map.Entry<Character, Node> entry : this.root.children.entrySet()) {
+			suggest(entry.getValue(), entry.getKey(), key, row, maximumDistance, byDistance);
+		}
+
+		Set<String> names = new LinkedHashSet<>();
+		for (Set<String> candidates : byDistance) {
+			for (String name : candidates) {
+				if (names.size() == maximumNames) {
+					return new ArrayList<>(names);
+				}
+				names.add(name);
+			}
+		}
+
+		return new ArrayList<>(names);
+	}
+
+	/**
+	 * Computes the edit distance of the keys below a node, using one row of the
+	 * Levenshtein matrix for each character and skipping the nodes whose row exceeds
+	 * the maximum distance.
+	 *
+	 * @param node node to visit
+	 * @param c character of the node
+	 * @param key string to compare with the keys
+	 * @param previous row of the parent node
+	 * @param maximumDistance maximum edit distance
+	 * @param byDistance names found, grouped by edit distance
+	 */
+	private static void suggest(Node node, char c, String key, int[] previous, int maximumDistance,
+			List<Set<String>> byDistance) {
+		int[] row = new int[previous.length];
+		row[0] = previous[0] + 1;
+		int minimum = row[0];
+		for (int i = 1; i < row.length; i++) {
+			int cost = (key.charAt(i - 1) == c) ? 0 : 1;
+			row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+			minimum = Math.min(minimum, row[i]);
+		}
+
+		int distance = row[row.length - 1];
+		if (distance <= maximumDistance) {
+			byDistance.get(distance).addAll(node.names);
+		}
+		if (minimum <= maximumDistance) {
+			for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+				suggest(entry.getValue(), entry.getKey(), key, row, maximumDistance, byDistance);
+			}
+		}
+	}
+
+	/**
+	 * Finds the node of a normalized key.
+	 *
+	 * @param key normalized key
+	 * @return node of the key, or null if no key starts with it
+	 */
+	private Node find(String key) {
+		Node node = this.root;
+		for (int i = 0; i < key.length() && node != null; i++) {
+			node = node.children.get(key.charAt(i));
+		}
+
+		return node;
+	}
+
+	/**
+	 * Collects all the names below a node.
+	 *
+	 * @param node node to visit
+	 * @param names names found
+	 */
+	private static void collect(Node node, Set<String> names) {
+		names.addAll(node.names);
+		for (Node child : node.children.values()) {
+			collect(child, names);
+		}
+	}
+
+}
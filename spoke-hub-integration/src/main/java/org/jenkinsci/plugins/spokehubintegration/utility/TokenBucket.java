@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Class that implements a lock-free token bucket.
+ * <p>
+ * The bucket holds at most {@code capacity} tokens and gets a new token every
+ * {@code period / capacity}. Instead of storing the number of tokens, the bucket
+ * stores the instant at which it will be full again, so that a token can be taken
+ * with a single compare-and-set. The time is read from a {@link Ticker}, so that the
+ * refill can be tested without waiting.
+ *
+ * @author Tommaso Montingelli
+ *
+ */
+public class TokenBucket {
+
+	private final long refillNanos;
+	private final long capacityNanos;
+	private final Ticker ticker;
+	private final AtomicLong fullAt;
+
+	/**
+	 * Creates a full bucket that reads the time of the system.
+	 *
+	 * @param capacity maximum number of tokens
+	 * @param period time needed to refill an empty bucket
+	 * @param unit unit of the period
+	 */
+	public TokenBucket(int capacity, long period, TimeUnit unit) {
+		this(capacity, period, unit, Ticker.systemTicker());
+	}
+
+	/**
+	 * Creates a full bucket.
+	 *
+	 * @param capacity maximum number of tokens
+	 * @param period time needed to refill an empty bucket
+	 * @param unit unit of the period
+	 * @param ticker source of the time in nanoseconds
+	 */
+	public TokenBucket(int capacity, long period, TimeUnit unit, Ticker ticker) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException(String.valueOf(capacity));
+		}
+
+		this.refillNanos = Math.max(1, unit.toNanos(period) / capacity);
+		this.capacityNanos = this.refillNanos * capacity;
+		this.ticker = ticker;
+		this.fullAt = new AtomicLong(ticker.read());
+	}
+
+	/**
+	 * Takes a token from the bucket.
+	 *
+	 * @return true if a token was available, otherwise false
+	 */
+	public boolean tryAcquire() {
+		long now = this.ticker.read();
+		while (true) {
+			long current = this.fullAt.get();
+			// a bucket that has been idle is full, not fuller
+			long next = (current - now < 0 ? now : current) + this.refillNanos;
+			// check if taking a token would need more than the capacity
+			if (next - now > this.capacityNanos) {
+				return false;
+			}
+			if (this.fullAt.compareAndSet(current, next)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a token taken from the bucket and not used.
+	 */
+	public void release() {
+		long now = this.ticker.read();
+		while (true) {
+			long current = this.fullAt.get();
+			// check if the bucket has been refilled in the meantime
+			if (current - now <= 0) {
+				return;
+			}
+			long previous = current - this.refillNanos;
+			if (this.fullAt.compareAndSet(current, previous - now < 0 ? now : previous)) {
+				return;
+			}
+		}
+	}
+
+}
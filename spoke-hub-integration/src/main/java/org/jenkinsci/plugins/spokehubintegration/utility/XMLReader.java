@@ -1,103 +1,142 @@
 package org.jenkinsci.plugins.spokehubintegration.utility;
 
-import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
- * Class that provides methods for accessing and reading an XML file.
- * 
+ * Class that reads the command mappings from an XML file.
+ * <p>
+ * The file is parsed once, with a streaming parser, into an immutable map of
+ * {@link CommandSpec}s that can be read by any number of threads.
+ *
  * @author Tommaso Montingelli
  *
  */
 public class XMLReader {
 
 	private static final Logger LOGGER = Logger.getLogger(XMLReader.class.getName());
-	private Document doc;
+	private static final String CALL = "call";
+	private static final String COMMAND = "command";
+	private static final String COST = "cost";
+	private static final String CLASS = "class";
+	private static final String METHOD = "method";
+	private static final String PARAMETER = "parameter";
+	private Map<String, CommandSpec> commands;
 
 	/**
-	 * Create a newly {@link Document} object.
-	 * 
+	 * Reads the command mappings from a file.
+	 *
 	 * @param path file path
 	 */
 	public XMLReader(String path) {
-		File xmlFile = new File(path);
-		DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder docBuilder;
-		try {
-			docBuilder = docBuilderFactory.newDocumentBuilder();
-			this.doc = docBuilder.parse(xmlFile);
-		} catch (ParserConfigurationException | SAXException | IOException e) {
+		try (InputStream stream = new FileInputStream(path)) {
+			this.commands = parse(stream);
+		} catch (IOException | XMLStreamException e) {
 			LOGGER.log(Level.SEVERE, null, e);
+			this.commands = Collections.emptyMap();
 		}
 	}
-	
+
 	/**
-	 * Create a newly {@link Document} object.
-	 * 
+	 * Reads the command mappings from a stream.
+	 *
 	 * @param stream stream containing the content to be parsed
 	 */
 	public XMLReader(InputStream stream) {
-		DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder docBuilder;
 		try {
-			docBuilder = docBuilderFactory.newDocumentBuilder();
-			this.doc = docBuilder.parse(stream);
-		} catch (ParserConfigurationException | SAXException | IOException e) {
+			this.commands = parse(stream);
+		} catch (XMLStreamException e) {
 			LOGGER.log(Level.SEVERE, null, e);
+			this.commands = Collections.emptyMap();
 		}
 	}
 
 	/**
-	 * Reads the values of the class and method parameters for the requested command.
-	 * 
-	 * @param command command requested
-	 * @return values of the class and method parameters
+	 * Parses the command mappings.
+	 *
+	 * @param stream stream containing the content to be parsed
+	 * @return command mappings, in the order of the file
+	 * @throws XMLStreamException if the content is not well-formed
 	 */
-	public List<String> getParameters(String command) {
-		List<String> elements = new ArrayList<>();
-		this.doc.getDocumentElement().normalize();
-		NodeList nodeList = this.doc.getElementsByTagName("call");
-		for (int i = 0; i < nodeList.getLength(); i++) {
-			Node node = nodeList.item(i);
-			if (node.getNodeType() == Node.ELEMENT_NODE) {
-				Element element = (Element) node;
-				if (element.getAttribute("command").matches(command)) {
-					elements.add(getTagValue("class", element));
-					elements.add(getTagValue("method", element));
-					elements.add(getTagValue("parameter", element));
+	private static Map<String, CommandSpec> parse(InputStream stream) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		// the file never needs a DTD, so external entities are not resolved
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		Map<String, CommandSpec> commands = new LinkedHashMap<>();
+		XMLStreamReader reader = factory.createXMLStreamReader(stream);
+		try {
+			String command = null;
+			String cost = null;
+			String classe = null;
+			String metodo = null;
+			String parametro = null;
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					String tag = reader.getLocalName();
+					if (CALL.equals(tag)) {
+						command = reader.getAttributeValue(null, COMMAND);
+						cost = reader.getAttributeValue(null, COST);
+						classe = null;
+						metodo = null;
+						parametro = null;
+					} else if (CLASS.equals(tag)) {
+						classe = reader.getElementText().trim();
+					} else if (METHOD.equals(tag)) {
+						metodo = reader.getElementText().trim();
+					} else if (PARAMETER.equals(tag)) {
+						parametro = reader.getElementText().trim();
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					// the first mapping of a command wins
+					if (CALL.equals(reader.getLocalName()) && command != null
+							&& !commands.containsKey(command)) {
+						commands.put(command, new CommandSpec(command, classe, metodo, parametro, cost));
+					}
+					break;
+
+				default:
 					break;
 				}
 			}
+		} finally {
+			reader.close();
 		}
-		return elements;
+
+		return Collections.unmodifiableMap(commands);
+	}
+
+	/**
+	 * Gets the mappings of all the commands.
+	 *
+	 * @return immutable map from the name of the command to its mapping
+	 */
+	public Map<String, CommandSpec> getCommands() {
+		return this.commands;
 	}
 
 	/**
-	 * Reads the value of a tag.
-	 * 
-	 * @param tag tag
-	 * @param element node to which the tag belongs
-	 * @return value of the tag
+	 * Gets the mapping of the requested command.
+	 *
+	 * @param command command requested
+	 * @return mapping of the command, or null if the command does not exist
 	 */
-	private String getTagValue(String tag, Element element) {
-		NodeList nodeList = element.getElementsByTagName(tag).item(0).getChildNodes();
-		Node nodeValue = nodeList.item(0);
-		return nodeValue.getNodeValue();
+	public CommandSpec getCommand(String command) {
+		return this.commands.get(command);
 	}
 
 }
@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.model.BooleanParameterValue;
+import hudson.model.ParameterValue;
+import hudson.model.PasswordParameterValue;
+import hudson.model.StringParameterValue;
+import hudson.model.TextParameterValue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class BuildCoalescingPropertyTest {
+	
+	/*
+	 * NOTE: the test classes must not extend junit.framework.TestCase class, 
+	 * otherwise the tests will fail.
+	 * 
+	 * NOTE: @Rule public JenkinsRule jenkins = new JenkinsRule(); must be inserted 
+	 * in all the test classes, otherwise the test cases will not have access to a 
+	 * Jenkins instance. 
+	 */
+	
+	@Rule 
+	public JenkinsRule jenkins = new JenkinsRule();
+	
+	/**
+	 * Tests the performance of the isSameValue method when the values are strings or 
+	 * booleans.
+	 */
+	@Test
+	public void testIsSameValue1() {
+		assert BuildCoalescingProperty.isSameValue(new StringParameterValue("key", "value"), 
+				new StringParameterValue("key", "value"));
+		assert !BuildCoalescingProperty.isSameValue(new StringParameterValue("key", "value"), 
+				new StringParameterValue("key", "newValue"));
+		assert !BuildCoalescingProperty.isSameValue(new StringParameterValue("key", "value"), 
+				new TextParameterValue("key", "value"));
+		assert BuildCoalescingProperty.isSameValue(new BooleanParameterValue("bool", true), 
+				new BooleanParameterValue("bool", true));
+		assert !BuildCoalescingProperty.isSameValue(new BooleanParameterValue("bool", true), 
+				new BooleanParameterValue("bool", false));
+		assert !BuildCoalescingProperty.isSameValue(new StringParameterValue("key", "value"), null);
+	}
+	
+	/**
+	 * Tests the performance of the isSameValue method when the values are passwords,
+	 * whose equals method compares only the names.
+	 */
+	@Test
+	public void testIsSameValue2() {
+		assert BuildCoalescingProperty.isSameValue(new PasswordParameterValue("password", "secret"), 
+				new PasswordParameterValue("password", "secret"));
+		assert !BuildCoalescingProperty.isSameValue(new PasswordParameterValue("password", "secret"), 
+				new PasswordParameterValue("password", "other"));
+	}
+	
+	/**
+	 * Tests the performance of the isSameValue method when the values have a type 
+	 * that cannot be compared.
+	 */
+	@Test
+	public void testIsSameValue3() {
+		ParameterValue value = new ParameterValue("file") {
+			private static final long serialVersionUID = 1L;
+		};
+		
+		assert !BuildCoalescingProperty.isSameValue(value, value);
+	}
+	
+}
@@ -1,5 +1,9 @@
 package org.jenkinsci.plugins.spokehubintegration;
 
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -120,5 +124,58 @@ public class CommandControllerTest {
 			assert true;
 		}
 	}
+	
+	/**
+	 * Tests the performance of the getPlan method when two requests contain the same 
+	 * command typed with different spacing.
+	 */
+	@Test
+	public void testGetPlan1() {
+		this.data.setText("help  build");
+		SlackData other = new SlackData();
+		other.setText(" help build ");
+		
+		CommandPlan expected = CommandController.getInstance().getPlan(this.data);
+		CommandPlan actual = CommandController.getInstance().getPlan(other);
+		
+		assert expected == actual;
+		assert "help".equals(actual.getCommand());
+		assert "build".equals(actual.getJob());
+	}
+
+	
+	/**
+	 * Tests the performance of the reload and reloadIfModified methods when the file 
+	 * in the Jenkins home directory contains no command and is then deleted.
+	 */
+	@Test
+	public void testReload1() {
+		CommandController controller = CommandController.getInstance();
+		File file = new File(this.jenkins.jenkins.getRootDir(), CommandController.COMMANDS_FILE);
+		try {
+			controller.reload();
+			CommandRegistry registry = controller.getRegistry();
+			FileUtils.writeStringToFile(file, "<commands/>", "UTF-8");
+			controller.reload();
+			
+			assert controller.getRegistry() == registry;
+			
+			// the rejected file has not been modified
+			controller.reloadIfModified();
+			
+			assert controller.getRegistry() == registry;
+			
+			FileUtils.forceDelete(file);
+			controller.reloadIfModified();
+			
+			assert controller.getRegistry() != registry;
+			assert controller.getRegistry().size() > 0;
+		} catch (IOException e) {
+			assert false;
+		} finally {
+			FileUtils.deleteQuietly(file);
+			controller.reload();
+		}
+	}
 
 }
@@ -0,0 +1,88 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import hudson.model.FreeStyleProject;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class JobCacheTest {
+	
+	/*
+	 * NOTE: the test classes must not extend junit.framework.TestCase class, 
+	 * otherwise the tests will fail.
+	 * 
+	 * NOTE: @Rule public JenkinsRule jenkins = new JenkinsRule(); must be inserted 
+	 * in all the test classes, otherwise the test cases will not have access to a 
+	 * Jenkins instance. 
+	 */
+	
+	@Rule 
+	public JenkinsRule jenkins = new JenkinsRule();
+	
+	/**
+	 * Tests the performance of the getProject method when a project is found by its 
+	 * name, ignoring the case, and by a unique prefix.
+	 */
+	@Test
+	public void testGetProject1() {
+		try {
+			FreeStyleProject project = this.jenkins.createFreeStyleProject("Library");
+			this.jenkins.createFreeStyleProject("App");
+			
+			assert JobCache.getInstance().getProject("Library") == project;
+			assert JobCache.getInstance().getProject("library") == project;
+			assert JobCache.getInstance().getProject("Lib") == project;
+			assert JobCache.getInstance().getProject("missing") == null;
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the getProject method when a project found before is 
+	 * renamed: {@link JobCacheListener} replaces the old name with the new one.
+	 */
+	@Test
+	public void testGetProject2() {
+		try {
+			FreeStyleProject project = this.jenkins.createFreeStyleProject("Library");
+			
+			assert JobCache.getInstance().getProject("Library") == project;
+			
+			project.renameTo("Core");
+			
+			assert JobCache.getInstance().getProject("Core") == project;
+			assert JobCache.getInstance().getProject("Library") == null;
+			assert JobCache.getInstance().getProject("Lib") == null;
+			assert JobCache.getInstance().getProjects("*").equals(Arrays.asList(project));
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the getProject method when a project found before is 
+	 * deleted: {@link JobCacheListener} removes it and it is no longer suggested.
+	 */
+	@Test
+	public void testGetProject3() {
+		try {
+			FreeStyleProject project = this.jenkins.createFreeStyleProject("Library");
+			
+			assert JobCache.getInstance().getProject("Library") == project;
+			
+			project.delete();
+			
+			assert JobCache.getInstance().getProject("Library") == null;
+			assert JobCache.getInstance().getProjects("Lib*").isEmpty();
+			assert JobCache.getInstance().getSuggestions("Libary").isEmpty();
+		} catch (IOException | InterruptedException e) {
+			assert false;
+		}
+	}
+	
+}
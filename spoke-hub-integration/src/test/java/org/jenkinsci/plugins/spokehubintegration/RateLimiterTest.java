@@ -0,0 +1,91 @@
+package org.jenkinsci.plugins.spokehubintegration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+public class RateLimiterTest {
+	
+	// the time is advanced by the tests
+	private long nanos;
+	private RateLimiter limiter;
+	
+	/**
+	 * Creates a limiter with the default settings.
+	 */
+	@Before
+	public void setUp() {
+		this.nanos = 0;
+		this.limiter = new RateLimiter(new Ticker() {
+			@Override
+			public long read() {
+				return RateLimiterTest.this.nanos;
+			}
+		});
+	}
+	
+	/**
+	 * Creates the data of a command sent by a user in a channel.
+	 * 
+	 * @param user identifier of the user
+	 * @param channel identifier of the channel
+	 * @return data sent by Slack
+	 */
+	private static SlackData createData(String user, String channel) {
+		SlackData data = new SlackData();
+		data.setTeam_id("T0001");
+		data.setUser_id(user);
+		data.setChannel_id(channel);
+		return data;
+	}
+	
+	/**
+	 * Tests the performance of the tryAcquire method when a user sends more expensive
+	 * commands than the limit and then waits for a new token.
+	 */
+	@Test
+	public void testTryAcquire1() {
+		SlackData data = createData("U1", "C1");
+		for (int i = 0; i < SlashCommandGlobalConfiguration.DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE; i++) {
+			assert this.limiter.tryAcquire(true, data);
+		}
+		
+		assert !this.limiter.tryAcquire(true, data);
+		// the cheap commands have their own buckets
+		assert this.limiter.tryAcquire(false, data);
+		
+		this.nanos += TimeUnit.MINUTES.toNanos(1) 
+				/ SlashCommandGlobalConfiguration.DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE;
+		
+		assert this.limiter.tryAcquire(true, data);
+		assert !this.limiter.tryAcquire(true, data);
+	}
+	
+	/**
+	 * Tests the performance of the tryAcquire method when the channel is over the 
+	 * limit: the commands rejected are not counted for the user.
+	 */
+	@Test
+	public void testTryAcquire2() {
+		int limit = SlashCommandGlobalConfiguration.DEFAULT_EXPENSIVE_COMMANDS_PER_MINUTE;
+		for (int i = 0; i < limit; i++) {
+			assert this.limiter.tryAcquire(true, createData("U" + i, "C1"));
+		}
+		
+		SlackData data = createData("U" + limit, "C1");
+		for (int i = 0; i < limit; i++) {
+			assert !this.limiter.tryAcquire(true, data);
+		}
+		
+		data = createData("U" + limit, "C2");
+		for (int i = 0; i < limit; i++) {
+			assert this.limiter.tryAcquire(true, data);
+		}
+		
+		assert !this.limiter.tryAcquire(true, data);
+	}
+	
+}
@@ -10,6 +10,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.StaplerResponse;
 
 import com.gargoylesoftware.htmlunit.HttpMethod;
@@ -90,6 +91,205 @@ public class SlackWebhookEndpointTest {
 		}
 	}
 	
+	/**
+	 * Tests the performance of the doIndex method when the number of pending commands
+	 * has reached the limit.
+	 */
+	@Test
+	public void testDoIndex3() {
+		CommandExecutor executor = CommandExecutor.getInstance();
+		int admitted = 0;
+		try {
+			this.slashCommandConfiguration.setSlackSlashCommandToken("9YKoANNRwOGAHvoPWGzWyPbE");
+			// fill the pending commands
+			while (executor.tryAcquire()) {
+				admitted++;
+			}
+			long rejected = executor.getRejectedCommands();
+			
+			List<NameValuePair> data = new ArrayList<>();
+			data.add(new NameValuePair("token", "9YKoANNRwOGAHvoPWGzWyPbE"));
+			data.add(new NameValuePair("text", "help"));
+			data.add(new NameValuePair("response_url", "https://hooks.slack.com/commands/1234/5678"));
+			
+			WebResponse response = makePostRequest(data);
+			String content = response.getContentAsString();
+			
+			assert content.contains(Messages.requestRejected());
+			assert content.contains(Messages.ephemeral());
+			assert response.getStatusCode() == StaplerResponse.SC_OK;
+			assert executor.getRejectedCommands() == rejected + 1;
+		} catch (IOException e) {
+			assert false;
+		} finally {
+			for (int i = 0; i < admitted; i++) {
+				executor.release();
+			}
+		}
+	}
+	
+	/**
+	 * Tests the performance of the doIndex method when the request contains a wrong 
+	 * token.
+	 */
+	@Test
+	public void testDoIndex4() {
+		try {
+			this.slashCommandConfiguration.setSlackSlashCommandToken("9YKoANNRwOGAHvoPWGzWyPbE");
+			int pending = CommandExecutor.getInstance().getPendingCommands();
+			
+			List<NameValuePair> data = new ArrayList<>();
+			data.add(new NameValuePair("token", "wrongToken"));
+			data.add(new NameValuePair("text", "help"));
+			data.add(new NameValuePair("response_url", "https://hooks.slack.com/commands/1234/5678"));
+			
+			WebResponse response = makePostRequest(data);
+			String content = response.getContentAsString();
+			
+			assert content.contains(Messages.invalidToken());
+			assert response.getStatusCode() == StaplerResponse.SC_UNAUTHORIZED;
+			assert CommandExecutor.getInstance().getPendingCommands() == pending;
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the doIndex method when the configuration has not been
+	 * loaded.
+	 */
+	@Test
+	public void testDoIndex5() {
+		int pending = CommandExecutor.getInstance().getPendingCommands();
+		// the request is not read without a configuration
+		HttpResponse actual = new SlackWebhookEndpoint(null).doIndex(null);
+		
+		HttpResponse expected = new PrecomputedResponse(JSONResponse.createResponse(
+				Messages.restartJenkins(), Messages.danger(), Messages.ephemeral()), 
+				StaplerResponse.SC_OK);
+		
+		assert expected.equals(actual);
+		assert CommandExecutor.getInstance().getPendingCommands() == pending;
+	}
+	
+	/**
+	 * Tests the performance of the doIndex method when Slack delivers again a request
+	 * with the same trigger_id. The pending commands are filled after the first 
+	 * delivery, so the second one would be rejected if it were executed.
+	 */
+	@Test
+	public void testDoIndex6() {
+		CommandExecutor executor = CommandExecutor.getInstance();
+		int admitted = 0;
+		try {
+			this.slashCommandConfiguration.setSlackSlashCommandToken("9YKoANNRwOGAHvoPWGzWyPbE");
+			
+			List<NameValuePair> data = new ArrayList<>();
+			data.add(new NameValuePair("token", "9YKoANNRwOGAHvoPWGzWyPbE"));
+			data.add(new NameValuePair("user_id", "U2147483697"));
+			data.add(new NameValuePair("text", "help"));
+			data.add(new NameValuePair("trigger_id", "13345224609.738474920.8ee5a2a8de0c1fc3"));
+			data.add(new NameValuePair("response_url", "https://hooks.slack.com/commands/1234/5678"));
+			
+			WebResponse first = makePostRequest(data);
+			// fill the pending commands
+			while (executor.tryAcquire()) {
+				admitted++;
+			}
+			long rejected = executor.getRejectedCommands();
+			WebResponse second = makePostRequest(data);
+			
+			assert first.getContentAsString().contains(Messages.requestReceived());
+			assert second.getContentAsString().equals(first.getContentAsString());
+			assert second.getStatusCode() == StaplerResponse.SC_OK;
+			assert executor.getRejectedCommands() == rejected;
+		} catch (IOException e) {
+			assert false;
+		} finally {
+			for (int i = 0; i < admitted; i++) {
+				executor.release();
+			}
+		}
+	}
+	
+	/**
+	 * Tests the performance of the doIndex method when Slack retries a request without
+	 * a trigger_id, marking it with the X-Slack-Retry-Num header.
+	 */
+	@Test
+	public void testDoIndex7() {
+		CommandExecutor executor = CommandExecutor.getInstance();
+		int admitted = 0;
+		try {
+			this.slashCommandConfiguration.setSlackSlashCommandToken("9YKoANNRwOGAHvoPWGzWyPbE");
+			
+			List<NameValuePair> data = new ArrayList<>();
+			data.add(new NameValuePair("token", "9YKoANNRwOGAHvoPWGzWyPbE"));
+			data.add(new NameValuePair("user_id", "U2147483698"));
+			data.add(new NameValuePair("text", "help"));
+			data.add(new NameValuePair("response_url", "https://hooks.slack.com/commands/1234/5678"));
+			
+			WebResponse first = makePostRequest(data);
+			// fill the pending commands
+			while (executor.tryAcquire()) {
+				admitted++;
+			}
+			long rejected = executor.getRejectedCommands();
+			WebResponse second = makeRetriedPostRequest(data, "1");
+			
+			assert first.getContentAsString().contains(Messages.requestReceived());
+			assert second.getContentAsString().equals(first.getContentAsString());
+			assert executor.getRejectedCommands() == rejected;
+		} catch (IOException e) {
+			assert false;
+		} finally {
+			for (int i = 0; i < admitted; i++) {
+				executor.release();
+			}
+		}
+	}
+	
+	/**
+	 * Tests the performance of the doIndex method when a request rejected because of 
+	 * too many pending commands is delivered again: the rejected request has been 
+	 * forgotten, so the retry is executed.
+	 */
+	@Test
+	public void testDoIndex8() {
+		CommandExecutor executor = CommandExecutor.getInstance();
+		int admitted = 0;
+		try {
+			this.slashCommandConfiguration.setSlackSlashCommandToken("9YKoANNRwOGAHvoPWGzWyPbE");
+			
+			List<NameValuePair> data = new ArrayList<>();
+			data.add(new NameValuePair("token", "9YKoANNRwOGAHvoPWGzWyPbE"));
+			data.add(new NameValuePair("user_id", "U2147483699"));
+			data.add(new NameValuePair("text", "help"));
+			data.add(new NameValuePair("trigger_id", "13345224609.738474920.1fc3f5e1ab4e2c6c"));
+			data.add(new NameValuePair("response_url", "https://hooks.slack.com/commands/1234/5678"));
+			
+			// fill the pending commands
+			while (executor.tryAcquire()) {
+				admitted++;
+			}
+			WebResponse first = makePostRequest(data);
+			for (; admitted > 0; admitted--) {
+				executor.release();
+			}
+			WebResponse second = makeRetriedPostRequest(data, "1");
+			
+			assert first.getContentAsString().contains(Messages.requestRejected());
+			assert second.getContentAsString().contains(Messages.requestReceived());
+			assert second.getStatusCode() == StaplerResponse.SC_OK;
+		} catch (IOException e) {
+			assert false;
+		} finally {
+			for (int i = 0; i < admitted; i++) {
+				executor.release();
+			}
+		}
+	}
+	
 	/**
 	 * Sends an HTTP POST request.
 	 * 
@@ -104,6 +304,24 @@ public class SlackWebhookEndpointTest {
         if (data != null)
             request.setRequestParameters(data);
 
+        return this.client.loadWebResponse(request);
+    }
+	
+	/**
+	 * Sends an HTTP POST request retried by Slack.
+	 * 
+	 * @param data content of the HTTP POST request
+	 * @param retryNum number of the retry
+	 * @return response to the request
+	 * @throws IOException
+	 */
+	private WebResponse makeRetriedPostRequest(List<NameValuePair> data, String retryNum) 
+			throws IOException {
+        WebRequestSettings request = new WebRequestSettings(
+        		this.client.createCrumbedUrl("slashCommandWebhook/"), HttpMethod.POST);
+        request.setAdditionalHeader("X-Slack-Retry-Num", retryNum);
+        request.setRequestParameters(data);
+
         return this.client.loadWebResponse(request);
     }
 	
@@ -0,0 +1,149 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import hudson.model.AbstractProject;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.jenkinsci.plugins.spokehubintegration.SlackData;
+import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class BuildChainTest {
+	
+	/*
+	 * NOTE: the test classes must not extend junit.framework.TestCase class, 
+	 * otherwise the tests will fail.
+	 * 
+	 * NOTE: @Rule public JenkinsRule jenkins = new JenkinsRule(); must be inserted 
+	 * in all the test classes, otherwise the test cases will not have access to a 
+	 * Jenkins instance. 
+	 */
+	
+	@Rule 
+	public JenkinsRule jenkins = new JenkinsRule();
+	private FreeStyleProject a;
+	private FreeStyleProject b;
+	private FreeStyleProject c;
+	private FreeStyleProject d;
+	private BuildChain chain;
+	
+	/**
+	 * Creates the chain a&gt;c;b&gt;d. Jenkins has no executors, so the builds stay in 
+	 * the queue and the chain is only updated by the tests.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.jenkins.jenkins.setNumExecutors(0);
+		this.a = this.jenkins.createFreeStyleProject("a");
+		this.b = this.jenkins.createFreeStyleProject("b");
+		this.c = this.jenkins.createFreeStyleProject("c");
+		this.d = this.jenkins.createFreeStyleProject("d");
+		
+		SlackData data = new SlackData();
+		data.setText("build a>c;b>d");
+		data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+		this.chain = new BuildChain(new JenkinsReceiver(), data, data.getCommandLine());
+		List<AbstractProject<?, ?>> none = Collections.emptyList();
+		this.chain.addProjects(none, Collections.<AbstractProject<?, ?>>singletonList(this.a));
+		this.chain.addProjects(Collections.<AbstractProject<?, ?>>singletonList(this.a), 
+				Collections.<AbstractProject<?, ?>>singletonList(this.c));
+		this.chain.addProjects(none, Collections.<AbstractProject<?, ?>>singletonList(this.b));
+		this.chain.addProjects(Collections.<AbstractProject<?, ?>>singletonList(this.b), 
+				Collections.<AbstractProject<?, ?>>singletonList(this.d));
+	}
+	
+	/**
+	 * Tests the performance of the start method when the chain contains two 
+	 * independent paths.
+	 */
+	@Test
+	public void testStart1() {
+		SlackMessage actual = this.chain.start();
+		
+		String message = Messages.chainStarted(4) 
+				+ "\n" + Messages.buildScheduled("a") 
+				+ "\n" + Messages.buildScheduled("b");
+		SlackMessage expected = new SlackMessage(message, Messages.good());
+		
+		assert expected.equals(actual);
+		assert this.jenkins.jenkins.getQueue().getItem(this.c) == null;
+		assert this.jenkins.jenkins.getQueue().getItem(this.d) == null;
+	}
+	
+	/**
+	 * Tests the performance of the update method when a project succeeds while the 
+	 * project of the other path is still building: only its downstream project is 
+	 * scheduled.
+	 */
+	@Test
+	public void testUpdate1() {
+		this.chain.start();
+		SlackMessage actual = this.chain.update("a", 1, Result.SUCCESS);
+		
+		String message = Messages.chainDownstreamScheduled("a", "1") 
+				+ "\n" + Messages.buildScheduled("c");
+		SlackMessage expected = new SlackMessage(message, Messages.good());
+		
+		assert expected.equals(actual);
+		assert this.jenkins.jenkins.getQueue().getItem(this.c) != null;
+		assert this.jenkins.jenkins.getQueue().getItem(this.d) == null;
+	}
+	
+	/**
+	 * Tests the performance of the update method when a project fails: its downstream
+	 * project is not built, while the other path completes.
+	 */
+	@Test
+	public void testUpdate2() {
+		this.chain.start();
+		SlackMessage actual = this.chain.update("b", 1, Result.FAILURE);
+		
+		String message = Messages.chainBuildFailed("b", "1", Result.FAILURE);
+		SlackMessage expected = new SlackMessage(message, Messages.danger());
+		
+		assert expected.equals(actual);
+		assert this.jenkins.jenkins.getQueue().getItem(this.d) == null;
+		
+		this.chain.update("a", 1, Result.SUCCESS);
+		actual = this.chain.update("c", 1, Result.SUCCESS);
+		
+		expected = new SlackMessage(Messages.chainIncomplete(2, 4), Messages.danger());
+		
+		assert expected.equals(actual);
+		assert this.jenkins.jenkins.getQueue().getItem(this.d) == null;
+	}
+	
+	/**
+	 * Tests the performance of the update method when a build that the chain is not 
+	 * waiting for completes.
+	 */
+	@Test
+	public void testUpdate3() {
+		this.chain.start();
+		
+		assert this.chain.update("c", 1, Result.SUCCESS) == null;
+		assert this.chain.update("missing", 1, Result.SUCCESS) == null;
+	}
+	
+	/**
+	 * Tests the performance of the findCycle method when a project depends on itself
+	 * through another project.
+	 */
+	@Test
+	public void testFindCycle1() {
+		assert this.chain.findCycle() == null;
+		
+		this.chain.addProjects(Collections.<AbstractProject<?, ?>>singletonList(this.d), 
+				Collections.<AbstractProject<?, ?>>singletonList(this.b));
+		
+		assert "b".equals(this.chain.findCycle());
+	}
+	
+}
@@ -1,17 +1,35 @@
 package org.jenkinsci.plugins.spokehubintegration.command;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import hudson.Launcher;
 import hudson.matrix.MatrixProject;
 import hudson.maven.MavenModuleSet;
 import hudson.maven.MavenModuleSetBuild;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.ChoiceParameterDefinition;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
 import hudson.tasks.Shell;
+import hudson.util.OneShotEvent;
+
+import net.sf.json.JSONObject;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.spokehubintegration.BuildCoalescingProperty;
+import org.jenkinsci.plugins.spokehubintegration.CommandController;
+import org.jenkinsci.plugins.spokehubintegration.JSONResponse;
 import org.jenkinsci.plugins.spokehubintegration.SlackData;
 import org.jenkinsci.plugins.spokehubintegration.SlackMessage;
 import org.junit.After;
@@ -19,6 +37,12 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.kohsuke.stapler.StaplerResponse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
 public class JenkinsReceiverTest {
 	
@@ -461,6 +485,373 @@ public class JenkinsReceiverTest {
 		}
 	}
 	
+	/**
+	 * Tests the performance of the build method when the user types the slash command
+	 * "/jenkins build JOB" where JOB is the beginning of the name of an existing project 
+	 * typed in a different case.
+	 */
+	@Test
+	public void testBuild16() {
+		try {
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			
+			SlackData data = new SlackData();
+			data.setText("build free");
+			data.setUser_name("tommyv92");
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.buildScheduled(freestyle.getFullName());
+			SlackMessage expected = new SlackMessage(message, Messages.good());
+			
+			while (freestyle.isInQueue());
+			while (freestyle.isBuilding());
+			
+			assert expected.equals(actual);
+			assert freestyle.getLastBuild() != null;
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command
+	 * "/jenkins build JOB" where JOB is a misspelled name of an existing project.
+	 */
+	@Test
+	public void testBuild17() {
+		try {
+			this.jenkins.createFreeStyleProject("Free-style");
+			
+			SlackData data = new SlackData();
+			String projectName = "Fre-stle";
+			data.setText("build " + projectName);
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.projectNotFoundSuggestions(projectName, "Free-style");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB -p KEY=VALUE" where VALUE is not one of the choices of the 
+	 * KEY parameter.
+	 */
+	@Test
+	public void testBuild18() {
+		try {
+			FreeStyleProject project = this.jenkins.createFreeStyleProject("Free-style");
+			ChoiceParameterDefinition parameterDefinition = new ChoiceParameterDefinition("key", 
+					new String[] {"first", "second"}, "description");
+			project.addProperty(new ParametersDefinitionProperty(parameterDefinition));
+			
+			SlackData data = new SlackData();
+			data.setText("build Free-style -p key=third");
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.invalidParameterValue("third", "key", "Free-style");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build PATTERN,JOB" where PATTERN matches two existing projects and JOB
+	 * does not exist.
+	 */
+	@Test
+	public void testBuild19() {
+		try {
+			this.jenkins.createFreeStyleProject("svc-b");
+			this.jenkins.createFreeStyleProject("svc-a");
+			this.jenkins.createFreeStyleProject("Free-style");
+			
+			SlackData data = new SlackData();
+			data.setText("build svc-*,missing");
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.buildsScheduled(2, 3) 
+					+ "\n" + Messages.buildScheduled("svc-a") 
+					+ "\n" + Messages.buildScheduled("svc-b") 
+					+ "\n" + Messages.projectNotFound("missing");
+			SlackMessage expected = new SlackMessage(message, Messages.warning());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB1>JOB2" where JOB1 and JOB2 are the names of existing projects.
+	 */
+	@Test
+	public void testBuild20() {
+		try {
+			this.jenkins.createFreeStyleProject("lib");
+			this.jenkins.createFreeStyleProject("app");
+			
+			SlackData data = new SlackData();
+			data.setText("build lib>app");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.chainStarted(2) + "\n" + Messages.buildScheduled("lib");
+			SlackMessage expected = new SlackMessage(message, Messages.good());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB1>JOB2" where JOB2 does not exist.
+	 */
+	@Test
+	public void testBuild21() {
+		try {
+			this.jenkins.createFreeStyleProject("lib");
+			
+			SlackData data = new SlackData();
+			data.setText("build lib>missing");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.build(data);
+			
+			String message = Messages.chainNotStarted() + "\n" + Messages.projectNotFound("missing");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB" while an identical build of JOB requested from Slack has 
+	 * just started and JOB merges the identical builds. The build is blocked until the
+	 * request has been answered.
+	 */
+	@Test
+	public void testBuild22() {
+		try {
+			final OneShotEvent release = new OneShotEvent();
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			freestyle.getBuildersList().add(new TestBuilder() {
+				@Override
+				public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, 
+						BuildListener listener) throws InterruptedException {
+					release.block();
+					return true;
+				}
+			});
+			freestyle.addProperty(new BuildCoalescingProperty(60));
+			FreeStyleBuild build = freestyle.scheduleBuild2(0, new SlackCause("user")).waitForStart();
+			
+			SlackData data = new SlackData();
+			data.setText("build Free-style");
+			SlackMessage actual = this.receiver.build(data);
+			release.signal();
+			
+			String message = Messages.startedBuildJoined(String.valueOf(build.getNumber()), "Free-style");
+			SlackMessage expected = new SlackMessage(message, Messages.good());
+			
+			assert expected.equals(actual);
+			this.jenkins.waitForCompletion(build);
+			assert build.getResult() == Result.SUCCESS;
+		} catch (IOException | InterruptedException | ExecutionException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB1>JOB2;JOB2>JOB1" where JOB1 and JOB2 depend on each other.
+	 */
+	@Test
+	public void testBuild23() {
+		try {
+			this.jenkins.createFreeStyleProject("lib");
+			this.jenkins.createFreeStyleProject("app");
+			
+			SlackData data = new SlackData();
+			data.setText("build lib>app;app>lib");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.build(data);
+			
+			SlackMessage expected = new SlackMessage(Messages.chainCycle("lib"), Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command 
+	 * "/jenkins build JOB" twice and JOB merges the identical builds. Jenkins has no 
+	 * executors, so the first build stays in the queue.
+	 */
+	@Test
+	public void testBuild24() {
+		try {
+			this.jenkins.jenkins.setNumExecutors(0);
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			freestyle.addProperty(new BuildCoalescingProperty(60));
+			
+			SlackData data = new SlackData();
+			data.setText("build Free-style");
+			this.receiver.build(data);
+			data = new SlackData();
+			data.setText("build Free-style");
+			SlackMessage actual = this.receiver.build(data);
+			
+			SlackMessage expected = new SlackMessage(Messages.queuedBuildJoined("Free-style"), 
+					Messages.good());
+			
+			assert expected.equals(actual);
+			assert this.jenkins.jenkins.getQueue().getItems().length == 1;
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command
+	 * "/jenkins build JOB" twice where JOB is the name of an existing project with a 
+	 * string and a choice parameter. Both builds use the default values, also when the
+	 * parameters of JOB have already been indexed.
+	 */
+	@Test
+	public void testBuild25() {
+		try {
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			ChoiceParameterDefinition choice = new ChoiceParameterDefinition("choice", 
+					new String[] {"first", "second"}, "description");
+			freestyle.addProperty(new ParametersDefinitionProperty(
+					new StringParameterDefinition("key", "value"), choice));
+			freestyle.getBuildersList().add(new Shell("echo $key $choice"));
+			
+			for (int i = 0; i < 2; i++) {
+				SlackData data = new SlackData();
+				data.setText("build Free-style");
+				CommandController.getInstance().getPlan(data);
+				SlackMessage actual = this.receiver.build(data);
+				
+				SlackMessage expected = new SlackMessage(Messages.buildScheduled("Free-style"), 
+						Messages.good());
+				
+				while (freestyle.isInQueue());
+				while (freestyle.isBuilding());
+				FreeStyleBuild build = freestyle.getLastBuild();
+				String log = FileUtils.readFileToString(build.getLogFile());
+				
+				assert expected.equals(actual);
+				assert build.getNumber() == i + 1;
+				assert log.contains("value first");
+			}
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command
+	 * "/jenkins build JOB PARAMETERS" where PARAMETERS enters a parameter, then a 
+	 * different one and then the first one again, or enters a defined parameter 
+	 * followed by a non-defined one.
+	 */
+	@Test
+	public void testBuild26() {
+		try {
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			freestyle.addProperty(new ParametersDefinitionProperty(
+					new StringParameterDefinition("key", "value"), 
+					new StringParameterDefinition("bool", "false"), 
+					new StringParameterDefinition("other", "value")));
+			
+			SlackData data = new SlackData();
+			data.setText("build Free-style -p key=newValue -p bool=true -p key=newValue");
+			CommandController.getInstance().getPlan(data);
+			SlackMessage actual = this.receiver.build(data);
+			
+			SlackMessage expected = new SlackMessage(Messages.invalidParameter("key", "Free-style"), 
+					Messages.danger());
+			
+			assert expected.equals(actual);
+			
+			data = new SlackData();
+			data.setText("build Free-style -p key=newValue -p newKey=newValue");
+			CommandController.getInstance().getPlan(data);
+			actual = this.receiver.build(data);
+			
+			expected = new SlackMessage(Messages.invalidParameter("newKey", "Free-style"), 
+					Messages.danger());
+			
+			assert expected.equals(actual);
+			assert freestyle.getLastBuild() == null;
+			assert !freestyle.isInQueue();
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the build method when the user types the slash command
+	 * "/jenkins build JOB -p KEY=VALUE" twice and the parameters of JOB are configured
+	 * again between the two commands, so that KEY is no longer defined. The parameters
+	 * entered with the first command must not be reused.
+	 */
+	@Test
+	public void testBuild27() {
+		try {
+			FreeStyleProject freestyle = this.jenkins.createFreeStyleProject("Free-style");
+			freestyle.addProperty(new ParametersDefinitionProperty(
+					new StringParameterDefinition("key", "value")));
+			String text = "build Free-style -p key=newValue";
+			
+			SlackData data = new SlackData();
+			data.setText(text);
+			CommandController.getInstance().getPlan(data);
+			SlackMessage actual = this.receiver.build(data);
+			
+			SlackMessage expected = new SlackMessage(Messages.buildScheduled("Free-style"), 
+					Messages.good());
+			
+			assert expected.equals(actual);
+			
+			while (freestyle.isInQueue());
+			while (freestyle.isBuilding());
+			freestyle.removeProperty(ParametersDefinitionProperty.class);
+			freestyle.addProperty(new ParametersDefinitionProperty(
+					new StringParameterDefinition("newKey", "value")));
+			
+			data = new SlackData();
+			data.setText(text);
+			CommandController.getInstance().getPlan(data);
+			actual = this.receiver.build(data);
+			
+			expected = new SlackMessage(Messages.invalidParameter("key", "Free-style"), 
+					Messages.danger());
+			
+			assert expected.equals(actual);
+			assert freestyle.getLastBuild().getNumber() == 1;
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
 	/**
 	 * Tests the performance of the test method when the user types the slash command
 	 * "/jenkins test JOB all" where JOB is the name of an existing maven project
@@ -479,15 +870,17 @@ public class JenkinsReceiverTest {
 			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
 			SlackMessage actual = this.receiver.test(data);
 			
-			SlackMessage expected = new SlackMessage(null, null);
+			SlackMessage expected = new SlackMessage(Messages.testScheduled("Maven"), Messages.good());
 			
+			// the test command does not wait for the build
+			this.jenkins.waitUntilNoActivity();
 			MavenModuleSetBuild build = maven.getLastBuild();
 			String log = FileUtils.readFileToString(build.getLogFile());
 			
 			assert expected.equals(actual);
 			assert goals.equals(maven.getGoals());
 			assert log.contains(Messages.slackCause(user_name));
-		} catch (IOException e) {
+		} catch (Exception e) {
 			assert false;
 		}
 	}
@@ -512,8 +905,10 @@ public class JenkinsReceiverTest {
 			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
 			SlackMessage actual = this.receiver.test(data);
 			
-			SlackMessage expected = new SlackMessage(null, null);
+			SlackMessage expected = new SlackMessage(Messages.testScheduled("Maven"), Messages.good());
 			
+			// the test command does not wait for the build
+			this.jenkins.waitUntilNoActivity();
 			MavenModuleSetBuild build = maven.getLastBuild();
 			String log = FileUtils.readFileToString(build.getLogFile());
 			
@@ -521,7 +916,7 @@ public class JenkinsReceiverTest {
 			assert goals.equals(maven.getGoals());
 			assert opts == maven.getMavenOpts();
 			assert log.contains(Messages.slackCause(user_name));
-		} catch (IOException e) {
+		} catch (Exception e) {
 			assert false;
 		}
 	}
@@ -741,6 +1136,151 @@ public class JenkinsReceiverTest {
 		}
 	}
 	
+	/**
+	 * Tests the performance of the test method when the user types the slash command
+	 * "/jenkins test JOB all --shards N" where JOB is the name of a maven project that 
+	 * has never been built.
+	 */
+	@Test
+	public void testTest13() {
+		try {
+			this.jenkins.createMavenProject("Maven");
+			
+			SlackData data = new SlackData();
+			data.setText("test Maven all --shards 4");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.test(data);
+			
+			String message = Messages.noTestResults("Maven");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the test method when the user types the slash command
+	 * "/jenkins test JOB all --shards N" where N is not a valid number of shards.
+	 */
+	@Test
+	public void testTest14() {
+		try {
+			this.jenkins.createMavenProject("Maven");
+			
+			SlackData data = new SlackData();
+			data.setText("test Maven all --shards 1");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.test(data);
+			
+			String message = Messages.invalidShards("1", 32);
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the test method when the user types the slash command
+	 * "/jenkins test JOB failed" where JOB is the name of a maven project that has 
+	 * never been built.
+	 */
+	@Test
+	public void testTest15() {
+		try {
+			this.jenkins.createMavenProject("Maven");
+			
+			SlackData data = new SlackData();
+			data.setText("test Maven failed");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.test(data);
+			
+			String message = Messages.failedTestsUnknown("Maven");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the test method when the user types the slash command 
+	 * "/jenkins test Maven class Test1,Test2#testA+" and a selector is not valid.
+	 */
+	@Test
+	public void testTest16() {
+		try {
+			this.jenkins.createMavenProject("Maven");
+			
+			SlackData data = new SlackData();
+			data.setText("test Maven class Test1,Test2#testA+");
+			data.setResponse_url("https://hooks.slack.com/commands/1234/5678");
+			SlackMessage actual = this.receiver.test(data);
+			
+			String message = Messages.invalidTestSelector("Test2#testA+");
+			SlackMessage expected = new SlackMessage(message, Messages.danger());
+			
+			assert expected.equals(actual);
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+	
+	/**
+	 * Tests the performance of the test method when the user types the slash command 
+	 * "/jenkins test Maven all" and the build is cancelled in the queue: the request 
+	 * is told that the tests were not performed. Jenkins has no executors, so the build
+	 * stays in the queue, and the response_url is served by a local server.
+	 */
+	@Test
+	public void testTest17() {
+		HttpServer server = null;
+		try {
+			final BlockingQueue<String> payloads = new LinkedBlockingQueue<>();
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+			server.createContext("/", new HttpHandler() {
+				@Override
+				public void handle(HttpExchange exchange) throws IOException {
+					String body = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+					payloads.add(URLDecoder.decode(body.substring(body.indexOf('=') + 1), "UTF-8"));
+					exchange.sendResponseHeaders(StaplerResponse.SC_OK, -1);
+					exchange.close();
+				}
+			});
+			server.start();
+			MavenModuleSet maven = this.jenkins.createMavenProject("Maven");
+			this.jenkins.jenkins.setNumExecutors(0);
+			
+			SlackData data = new SlackData();
+			data.setText("test Maven all");
+			data.setResponse_url("http://localhost:" + server.getAddress().getPort() + "/");
+			SlackMessage actual = this.receiver.test(data);
+			
+			SlackMessage expected = new SlackMessage(Messages.testScheduled("Maven"), Messages.good());
+			
+			assert expected.equals(actual);
+			
+			this.jenkins.jenkins.getQueue().cancel(maven);
+			String payload = payloads.poll(30, TimeUnit.SECONDS);
+			
+			SlackMessage cancelled = new SlackMessage(Messages.testCancelled("Maven"), Messages.danger());
+			
+			assert payload != null;
+			assert JSONObject.fromObject(payload).equals(JSONResponse.createResponse(cancelled.getText(), 
+					cancelled.getColor(), cancelled.getResponse_type()));
+		} catch (IOException | InterruptedException e) {
+			assert false;
+		} finally {
+			if (server != null) {
+				server.stop(0);
+			}
+		}
+	}
+	
 	/**
 	 * Tests the performance of the listJobs method when the user types the slash command 
 	 * "/jenkins list-jobs" and there are not jobs in Jenkins.
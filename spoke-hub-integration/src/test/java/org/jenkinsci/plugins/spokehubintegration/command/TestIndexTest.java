@@ -0,0 +1,48 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class TestIndexTest {
+	
+	
+	/**
+	 * Tests the performance of the toRegex method when the pattern contains dots and
+	 * $, that must match only themselves.
+	 */
+	@Test
+	public void testToRegex1() {
+		Pattern regex = TestIndex.toRegex("com.foo.Bar$Inner");
+		
+		assert regex.matcher("com.foo.Bar$Inner").matches();
+		assert !regex.matcher("comXfooYBar$Inner").matches();
+	}
+	
+	/**
+	 * Tests the performance of the toRegex method when the pattern contains the * and
+	 * ? wildcards.
+	 */
+	@Test
+	public void testToRegex2() {
+		Pattern regex = TestIndex.toRegex("com.foo.Parser*Test?");
+		
+		assert regex.matcher("com.foo.ParserTest1").matches();
+		assert regex.matcher("com.foo.ParserEmptyTestA").matches();
+		assert !regex.matcher("com.foo.ParserTest").matches();
+		assert !regex.matcher("comXfoo.ParserTest1").matches();
+	}
+	
+	/**
+	 * Tests the performance of the isSelector method with qualified names, methods and
+	 * characters that surefire does not accept.
+	 */
+	@Test
+	public void testIsSelector1() {
+		assert TestIndex.isSelector("com.foo.Bar");
+		assert TestIndex.isSelector("Parser*Test#testA+test?");
+		assert !TestIndex.isSelector("Test2#testA+");
+		assert !TestIndex.isSelector("Test(1)");
+	}
+	
+}
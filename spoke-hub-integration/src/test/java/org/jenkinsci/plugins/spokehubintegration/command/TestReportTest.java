@@ -0,0 +1,116 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestReportTest {
+
+	private static final String FAILED_REPORT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<testsuite name=\"com.example.ParserTest\" time=\"1,234.5\" tests=\"3\">"
+			+ "<properties><property name=\"java.version\" value=\"1.7\"/></properties>"
+			+ "<testcase name=\"testEmpty\" classname=\"com.example.ParserTest\" time=\"1\">"
+			+ "<failure type=\"java.lang.AssertionError\"><![CDATA[java.lang.AssertionError: empty\n"
+			+ "\tat com.example.ParserTest.testEmpty(ParserTest.java:12)\n"
+			+ "\tat sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)]]></failure>"
+			+ "</testcase>"
+			+ "<testcase name=\"testNull[1]\" classname=\"com.example.ParserTest\">"
+			+ "<error type=\"java.lang.NullPointerException\"/></testcase>"
+			+ "<testcase name=\"testIgnored\" classname=\"com.example.ParserTest\"><skipped/></testcase>"
+			+ "</testsuite>";
+	private static final String PASSED_REPORT = "<testsuite name=\"com.example.LexerTest\" time=\"0.5\">"
+			+ "<testcase name=\"testToken\" classname=\"com.example.LexerTest\" time=\"0.5\"/>"
+			+ "</testsuite>";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Tests the performance of the parse and getSummary methods when the reports
+	 * contain failures, errors and skipped tests.
+	 */
+	@Test
+	public void testParse1() {
+		try {
+			TestReport report = new TestReport();
+			report.parse(new ByteArrayInputStream(FAILED_REPORT.getBytes(StandardCharsets.UTF_8)));
+			report.parse(new ByteArrayInputStream(PASSED_REPORT.getBytes(StandardCharsets.UTF_8)));
+			String actual = report.getSummary();
+
+			String expected = "\n" + Messages.testTotals(4, 1, 1, 1, 2)
+					+ "\n" + Messages.failedTestsHeader()
+					+ "\n" + Messages.testFailure("ParserTest#testEmpty",
+							"at com.example.ParserTest.testEmpty(ParserTest.java:12)")
+					+ "\n" + Messages.testFailure("ParserTest#testNull", "java.lang.NullPointerException")
+					+ "\n" + Messages.slowestClassesHeader()
+					+ "\n" + Messages.classDuration("ParserTest", "1234.50")
+					+ "\n" + Messages.classDuration("LexerTest", "0.50");
+
+			assert expected.equals(actual);
+		} catch (XMLStreamException e) {
+			assert false;
+		}
+	}
+
+	/**
+	 * Tests the performance of the merge and getSummary methods when the reports of
+	 * two modules are merged and one of them has no report.
+	 */
+	@Test
+	public void testMerge1() {
+		try {
+			TestReport module = new TestReport();
+			module.parse(new ByteArrayInputStream(PASSED_REPORT.getBytes(StandardCharsets.UTF_8)));
+			TestReport report = new TestReport();
+			report.merge(new TestReport());
+
+			assert report.getSummary().isEmpty();
+
+			report.merge(module);
+			String expected = "\n" + Messages.testTotals(1, 0, 0, 0, 1)
+					+ "\n" + Messages.slowestClassesHeader()
+					+ "\n" + Messages.classDuration("LexerTest", "0.50");
+
+			assert expected.equals(report.getSummary());
+		} catch (XMLStreamException e) {
+			assert false;
+		}
+	}
+
+	/**
+	 * Tests the performance of the addReports method when the reports directory
+	 * contains a report left by a previous build and a file that is not a report.
+	 */
+	@Test
+	public void testAddReports1() {
+		try {
+			File directory = this.folder.newFolder("surefire-reports");
+			File previous = new File(directory, "TEST-com.example.ParserTest.xml");
+			FileUtils.writeStringToFile(previous, FAILED_REPORT, "UTF-8");
+			previous.setLastModified(System.currentTimeMillis() - 60000);
+			FileUtils.writeStringToFile(new File(directory, "TEST-com.example.LexerTest.xml"),
+					PASSED_REPORT, "UTF-8");
+			FileUtils.writeStringToFile(new File(directory, "com.example.LexerTest.txt"),
+					"Tests run: 1", "UTF-8");
+
+			TestReport report = new TestReport();
+			report.addReports(directory, System.currentTimeMillis() - 30000);
+			String expected = "\n" + Messages.testTotals(1, 0, 0, 0, 1)
+					+ "\n" + Messages.slowestClassesHeader()
+					+ "\n" + Messages.classDuration("LexerTest", "0.50");
+
+			assert expected.equals(report.getSummary());
+		} catch (IOException e) {
+			assert false;
+		}
+	}
+
+}
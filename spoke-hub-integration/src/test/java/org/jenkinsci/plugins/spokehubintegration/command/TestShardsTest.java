@@ -0,0 +1,41 @@
+package org.jenkinsci.plugins.spokehubintegration.command;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestShardsTest {
+	
+	
+	/**
+	 * Tests the performance of the getFilters method when the classes are split into 
+	 * three groups.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testGetFilters1() {
+		List<List<String>> groups = Arrays.asList(Arrays.asList("ATest", "BTest"), 
+				Arrays.asList("CTest"), Arrays.asList("DTest"));
+		List<String> actual = TestShards.getFilters(groups);
+		
+		List<String> expected = Arrays.asList("ATest,BTest", "CTest", "!ATest,!BTest,!CTest");
+		
+		assert expected.equals(actual);
+	}
+	
+	/**
+	 * Tests the performance of the getFilters method when there is only one group, 
+	 * that must run all the tests.
+	 */
+	@Test
+	public void testGetFilters2() {
+		List<List<String>> groups = Collections.singletonList(Arrays.asList("ATest"));
+		List<String> actual = TestShards.getFilters(groups);
+		
+		assert actual.size() == 1;
+		assert actual.get(0) == null;
+	}
+	
+}
@@ -0,0 +1,99 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+	
+	private static final int EXPECTED_INSERTIONS = 1000;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+	
+	/**
+	 * Tests the performance of the mightContain method when the filter contains the 
+	 * expected number of strings: all the strings added are found.
+	 */
+	@Test
+	public void testMightContain1() {
+		BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+		for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+			filter.put("folder/job-" + i);
+		}
+		
+		for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+			assert filter.mightContain("folder/job-" + i);
+		}
+	}
+	
+	/**
+	 * Tests the performance of the mightContain method when the filter contains the 
+	 * expected number of strings: the rate of false positives is close to the 
+	 * configured one.
+	 */
+	@Test
+	public void testMightContain2() {
+		BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+		for (int i = 0; i < EXPECTED_INSERTIONS; i++) {
+			filter.put("folder/job-" + i);
+		}
+		
+		int checks = 100 * EXPECTED_INSERTIONS;
+		int falsePositives = 0;
+		for (int i = 0; i < checks; i++) {
+			if (filter.mightContain("other/job-" + i)) {
+				falsePositives++;
+			}
+		}
+		
+		assert falsePositives < checks * FALSE_POSITIVE_RATE * 2;
+	}
+	
+	/**
+	 * Tests the performance of the mightContain method when the filter is empty.
+	 */
+	@Test
+	public void testMightContain3() {
+		BloomFilter filter = new BloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_RATE);
+		
+		assert !filter.mightContain("");
+		assert !filter.mightContain("job");
+	}
+	
+	/**
+	 * Tests the performance of the isFull method when more strings than expected are
+	 * added.
+	 */
+	@Test
+	public void testIsFull1() {
+		BloomFilter filter = new BloomFilter(2, FALSE_POSITIVE_RATE);
+		filter.put("a");
+		filter.put("b");
+		
+		assert !filter.isFull();
+		
+		filter.put("c");
+		
+		assert filter.isFull();
+	}
+	
+	/**
+	 * Tests the performance of the BloomFilter constructor when the sizing arguments 
+	 * are not valid.
+	 */
+	@Test
+	public void testBloomFilter1() {
+		try {
+			new BloomFilter(0, FALSE_POSITIVE_RATE);
+			
+			assert false;
+		} catch (IllegalArgumentException e) {
+			assert true;
+		}
+		try {
+			new BloomFilter(EXPECTED_INSERTIONS, 1);
+			
+			assert false;
+		} catch (IllegalArgumentException e) {
+			assert true;
+		}
+	}
+	
+}
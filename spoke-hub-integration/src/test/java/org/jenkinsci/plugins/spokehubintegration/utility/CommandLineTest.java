@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CommandLineTest {
+	
+	
+	/**
+	 * Tests the performance of the CommandLine constructor when the text contains 
+	 * repeated whitespace and key=value pairs with whitespace around the equals sign.
+	 */
+	@Test
+	public void testCommandLine1() {
+		CommandLine commandLine = new CommandLine("  build   Free-style -p key = newValue ");
+		
+		assert commandLine.size() == 4;
+		assert commandLine.isToken(0, "build");
+		assert "Free-style".equals(commandLine.getToken(1));
+		assert commandLine.isPair(3);
+		assert "key".equals(commandLine.getKey(3));
+		assert "newValue".equals(commandLine.getValue(3));
+		assert "key=newValue".equals(commandLine.getToken(3));
+	}
+	
+	/**
+	 * Tests the performance of the CommandLine constructor when the text contains 
+	 * quoted values with spaces.
+	 */
+	@Test
+	public void testCommandLine2() {
+		CommandLine commandLine = new CommandLine("build Free-style -p key=\"new value\" -p bool='a b'");
+		
+		assert commandLine.size() == 6;
+		assert "new value".equals(commandLine.getValue(3));
+		assert "a b".equals(commandLine.getValue(5));
+		assert "key=\"new value\"".equals(commandLine.getRaw(3));
+	}
+	
+	/**
+	 * Tests the performance of the CommandLine constructor when the text contains 
+	 * a comma separated list with whitespace around the commas.
+	 */
+	@Test
+	public void testCommandLine3() {
+		CommandLine commandLine = new CommandLine("test Maven class Test1 , Test2,Test3");
+		
+		assert commandLine.size() == 4;
+		assert !commandLine.isPair(3);
+		assert Arrays.asList("Test1", "Test2", "Test3").equals(commandLine.getItems(3));
+	}
+	
+	/**
+	 * Tests the performance of the CommandLine constructor when the text is empty.
+	 */
+	@Test
+	public void testCommandLine4() {
+		CommandLine commandLine = new CommandLine(" ");
+		
+		assert commandLine.size() == 0;
+	}
+	
+	/**
+	 * Tests the performance of the CommandLine constructor when the text is null.
+	 */
+	@Test
+	public void testCommandLine5() {
+		try {
+			new CommandLine(null);
+			
+			assert false;
+		} catch (NullPointerException e) {
+			assert true;
+		}
+	}
+
+}
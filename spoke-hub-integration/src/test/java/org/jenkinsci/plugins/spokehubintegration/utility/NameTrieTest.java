@@ -0,0 +1,91 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NameTrieTest {
+	
+	private NameTrie trie;
+	
+	/**
+	 * Stores the full and short names of three jobs, as the job cache does.
+	 */
+	@Before
+	public void setUp() {
+		this.trie = new NameTrie();
+		for (String fullName : Arrays.asList("team/App", "team/Application", "Library")) {
+			this.trie.put(fullName, fullName);
+			this.trie.put(fullName.substring(fullName.lastIndexOf('/') + 1), fullName);
+		}
+	}
+	
+	/**
+	 * Tests the performance of the resolve method when the key is a full or short name 
+	 * typed with a different case.
+	 */
+	@Test
+	public void testResolve1() {
+		assert "team/App".equals(this.trie.resolve("TEAM/APP"));
+		assert "team/Application".equals(this.trie.resolve("application"));
+		assert "Library".equals(this.trie.resolve("library"));
+	}
+	
+	/**
+	 * Tests the performance of the resolve method when the key is a prefix of one or
+	 * more keys.
+	 */
+	@Test
+	public void testResolve2() {
+		assert "Library".equals(this.trie.resolve("Lib"));
+		assert "team/Application".equals(this.trie.resolve("Appl"));
+		// an exact key wins over the longer keys
+		assert "team/App".equals(this.trie.resolve("App"));
+		assert this.trie.resolve("Ap") == null;
+		assert this.trie.resolve("missing") == null;
+	}
+	
+	/**
+	 * Tests the performance of the remove method when a name is removed from its 
+	 * keys, as for a renamed or deleted job.
+	 */
+	@Test
+	public void testRemove1() {
+		this.trie.remove("team/App", "team/App");
+		this.trie.remove("App", "team/App");
+		
+		assert "team/Application".equals(this.trie.resolve("Ap"));
+		assert "team/Application".equals(this.trie.resolve("team/"));
+		assert new HashSet<>(Arrays.asList("team/Application")).equals(this.trie.getNames("team/"));
+		
+		this.trie.remove("missing", "team/Application");
+		
+		assert "team/Application".equals(this.trie.resolve("app"));
+	}
+	
+	/**
+	 * Tests the performance of the getNames method when the prefix matches several 
+	 * keys or no key.
+	 */
+	@Test
+	public void testGetNames1() {
+		assert new HashSet<>(Arrays.asList("team/App", "team/Application")).equals(this.trie.getNames("a"));
+		assert new HashSet<>(Arrays.asList("team/App", "team/Application", "Library"))
+				.equals(this.trie.getNames(""));
+		assert this.trie.getNames("z").isEmpty();
+	}
+	
+	/**
+	 * Tests the performance of the suggest method when the name contains typos.
+	 */
+	@Test
+	public void testSuggest1() {
+		assert Arrays.asList("Library").equals(this.trie.suggest("Libary", 2, 3));
+		assert Arrays.asList("team/App").equals(this.trie.suggest("Apq", 2, 3));
+		assert Collections.emptyList().equals(this.trie.suggest("Zebra", 2, 3));
+	}
+	
+}
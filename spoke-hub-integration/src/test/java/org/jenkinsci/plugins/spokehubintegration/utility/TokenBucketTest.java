@@ -0,0 +1,88 @@
+package org.jenkinsci.plugins.spokehubintegration.utility;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+public class TokenBucketTest {
+	
+	// the time is advanced by the tests
+	private long nanos;
+	private TokenBucket bucket;
+	
+	/**
+	 * Creates a bucket of three tokens that gets a new token every second.
+	 */
+	@Before
+	public void setUp() {
+		this.nanos = 0;
+		this.bucket = new TokenBucket(3, 3, TimeUnit.SECONDS, new Ticker() {
+			@Override
+			public long read() {
+				return TokenBucketTest.this.nanos;
+			}
+		});
+	}
+	
+	/**
+	 * Tests the performance of the tryAcquire method when the bucket is emptied and 
+	 * then refilled.
+	 */
+	@Test
+	public void testTryAcquire1() {
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert !this.bucket.tryAcquire();
+		
+		this.nanos += TimeUnit.MILLISECONDS.toNanos(999);
+		
+		assert !this.bucket.tryAcquire();
+		
+		this.nanos += TimeUnit.MILLISECONDS.toNanos(1);
+		
+		assert this.bucket.tryAcquire();
+		assert !this.bucket.tryAcquire();
+	}
+	
+	/**
+	 * Tests the performance of the tryAcquire method when the bucket has been idle for
+	 * longer than the period: it holds no more tokens than its capacity.
+	 */
+	@Test
+	public void testTryAcquire2() {
+		this.nanos += TimeUnit.MINUTES.toNanos(10);
+		
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert !this.bucket.tryAcquire();
+	}
+	
+	/**
+	 * Tests the performance of the release method when a token is given back to an 
+	 * empty bucket and to a full bucket.
+	 */
+	@Test
+	public void testRelease1() {
+		this.bucket.tryAcquire();
+		this.bucket.tryAcquire();
+		this.bucket.tryAcquire();
+		this.bucket.release();
+		
+		assert this.bucket.tryAcquire();
+		assert !this.bucket.tryAcquire();
+		
+		this.nanos += TimeUnit.SECONDS.toNanos(3);
+		this.bucket.release();
+		
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert this.bucket.tryAcquire();
+		assert !this.bucket.tryAcquire();
+	}
+	
+}